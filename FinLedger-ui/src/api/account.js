@@ -6,6 +6,8 @@ export const accountApi = {
   getByCategory: (category) => api.get(`/accounts/category/${category}`),
   getRoot: () => api.get('/accounts/root'),
   getChildren: (parentId) => api.get(`/accounts/parent/${parentId}`),
+  getTree: () => api.get('/accounts/tree'),
+  getBalance: (id) => api.get(`/accounts/${id}/balance`),
   create: (data) => api.post('/accounts', data),
   update: (id, data) => api.put(`/accounts/${id}`, data),
   delete: (id) => api.delete(`/accounts/${id}`)
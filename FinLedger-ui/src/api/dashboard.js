@@ -0,0 +1,21 @@
+import api from './index'
+
+export const dashboardApi = {
+  getSummary: () => api.get('/dashboard/summary')
+}
+
+/**
+ * 订阅状态变化事件流（EventSource 不能设置请求头，token 通过查询参数传递）
+ * 收到事件或缓冲溢出时调用 onChange，返回的 EventSource 需在页面卸载时关闭
+ */
+export const subscribeEvents = (onChange) => {
+  const token = localStorage.getItem('token')
+  const source = new EventSource(`${api.defaults.baseURL}/events?token=${encodeURIComponent(token || '')}`)
+  const types = [
+    'entry.submitted', 'entry.approved', 'entry.rejected', 'entry.draft',
+    'payment.pending', 'payment.approved', 'payment.rejected', 'payment.paid',
+    'transaction.posted', 'overflow'
+  ]
+  types.forEach(type => source.addEventListener(type, onChange))
+  return source
+}
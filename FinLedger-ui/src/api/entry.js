@@ -1,12 +1,14 @@
 import api from './index'
 
 export const entryApi = {
-  getAll: () => api.get('/entries'),
-  getSubmitted: () => api.get('/entries/submitted'),
+  getAll: (params) => api.get('/entries', { params }),
+  getPage: (params) => api.get('/entries/page', { params }),
+  getSubmitted: (params) => api.get('/entries/submitted', { params }),
   getById: (id) => api.get(`/entries/${id}`),
   getByTransaction: (transactionId) => api.get(`/entries/transaction/${transactionId}`),
   getSplits: (entryId) => api.get(`/entries/${entryId}/splits`),
   create: (data) => api.post('/entries', data),
+  bulkCreate: (data) => api.post('/entries/bulk', data),
   updateStatus: (id, status) => api.put(`/entries/${id}/status`, null, { params: { status } }),
   delete: (id) => api.delete(`/entries/${id}`)
 }
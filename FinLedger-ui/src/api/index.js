@@ -14,6 +14,11 @@ api.interceptors.request.use(
     if (token) {
       config.headers.Authorization = `Bearer ${token}`
     }
+    // 带回最近一次写入的提交时间，请求落到其他节点时同样能读到刚保存的数据
+    const lastWrite = sessionStorage.getItem('lastWrite')
+    if (lastWrite) {
+      config.headers['X-Last-Write'] = lastWrite
+    }
     return config
   },
   error => {
@@ -23,7 +28,13 @@ api.interceptors.request.use(
 
 // 响应拦截器
 api.interceptors.response.use(
-  response => response.data,
+  response => {
+    const lastWrite = response.headers['x-last-write']
+    if (lastWrite) {
+      sessionStorage.setItem('lastWrite', lastWrite)
+    }
+    return response.data
+  },
   error => {
     // 处理 401 未授权错误
     if (error.response?.status === 401) {
@@ -2,6 +2,7 @@ import api from './index'
 
 export const paymentApi = {
   getAll: () => api.get('/payments'),
+  getPage: (params) => api.get('/payments/page', { params }),
   getPending: () => api.get('/payments/pending'),
   getById: (id) => api.get(`/payments/${id}`),
   getByTransaction: (transactionId) => api.get(`/payments/transaction/${transactionId}`),
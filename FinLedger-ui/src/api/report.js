@@ -0,0 +1,10 @@
+import api from './index'
+
+export const reportApi = {
+  getTrialBalance: (params) => api.get('/reports/trial-balance', { params }),
+  getIncomeStatement: (params) => api.get('/reports/income-statement', { params }),
+  getBalanceSheet: (params) => api.get('/reports/balance-sheet', { params }),
+  getAging: (params) => api.get('/reports/aging', { params }),
+  getCashFlowForecast: () => api.get('/reports/cash-flow-forecast')
+}
+
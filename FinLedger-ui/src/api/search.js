@@ -0,0 +1,6 @@
+import api from './index'
+
+export const searchApi = {
+  search: (params) => api.get('/search', { params }),
+  rebuild: () => api.post('/search/rebuild')
+}
@@ -2,10 +2,17 @@ import api from './index'
 
 export const transactionApi = {
   getAll: () => api.get('/transactions'),
+  getPage: (params) => api.get('/transactions/page', { params }),
   getPending: () => api.get('/transactions/pending'),
   getById: (id) => api.get(`/transactions/${id}`),
   getByUser: (userId) => api.get(`/transactions/user/${userId}`),
   create: (data) => api.post('/transactions', data),
+  import: (file) => {
+    const form = new FormData()
+    form.append('file', file)
+    return api.post('/transactions/import', form)
+  },
+  getImportJob: (jobId) => api.get(`/transactions/import/${jobId}`),
   update: (id, data) => api.put(`/transactions/${id}`, data),
   delete: (id) => api.delete(`/transactions/${id}`)
 }
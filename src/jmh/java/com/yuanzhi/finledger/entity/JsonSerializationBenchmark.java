@@ -0,0 +1,107 @@
+package com.yuanzhi.finledger.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体列表 JSON 序列化基准
+ * 列表长度对应分页接口的默认页（20）、最大页（200）和全量列表接口（2000）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    
+    @Param({"20", "200", "2000"})
+    private int size;
+    
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    
+    private List<Transaction> transactions;
+    private List<Entry> entries;
+    private List<Split> splits;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2025, 6, 30, 9, 30);
+        transactions = new ArrayList<>(size);
+        entries = new ArrayList<>(size);
+        splits = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(10_000_000) + 1, 2);
+            
+            Transaction transaction = new Transaction();
+            transaction.setId(i + 1);
+            transaction.setDate(now.minusHours(i));
+            transaction.setSupplierClient("上海某某科技有限公司" + i);
+            transaction.setProject("PRJ-" + (i % 10));
+            transaction.setDueDate(now.plusDays(30));
+            transaction.setProductService("技术服务费");
+            transaction.setQuantity(random.nextInt(100) + 1);
+            transaction.setUnitPrice(amount);
+            transaction.setTotalAmount(amount);
+            transaction.setTaxRate(new BigDecimal("0.13"));
+            transaction.setUserID(1001);
+            transactions.add(transaction);
+            
+            Entry entry = new Entry();
+            entry.setId(i + 1);
+            entry.setSummary("收到客户技术服务费 " + i);
+            entry.setTotalAmount(amount);
+            entry.setCreatedDate(now.minusHours(i));
+            entry.setStatus("SUBMITTED");
+            entry.setTransactionID(i + 1);
+            entry.setUserID(1001);
+            entries.add(entry);
+            
+            Split split = new Split();
+            split.setId(i + 1);
+            split.setEntryID(i / 2 + 1);
+            split.setAccountID(random.nextInt(200) + 1);
+            split.setQuantity(1);
+            split.setUnitPrice(amount);
+            split.setDebitAmount(i % 2 == 0 ? amount : BigDecimal.ZERO);
+            split.setCreditAmount(i % 2 == 0 ? BigDecimal.ZERO : amount);
+            split.setTaxAmount(amount.multiply(new BigDecimal("0.13")).setScale(2, RoundingMode.HALF_UP));
+            splits.add(split);
+        }
+    }
+    
+    @Benchmark
+    public byte[] transactions() {
+        return objectMapper.writeValueAsBytes(transactions);
+    }
+    
+    @Benchmark
+    public byte[] entries() {
+        return objectMapper.writeValueAsBytes(entries);
+    }
+    
+    @Benchmark
+    public byte[] splits() {
+        return objectMapper.writeValueAsBytes(splits);
+    }
+}
@@ -0,0 +1,58 @@
+package com.yuanzhi.finledger.util;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 签发与验证基准
+ * extractClaimsCached 为缓存命中路径；extractClaimsUncached 关闭缓存，每次验证签名
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    
+    private static final String SECRET = "FinLedgerSecretKeyForJWTTokenGeneration2024";
+    
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 86400000L, 10000, new SimpleMeterRegistry());
+        uncachedJwtUtil = new JwtUtil(SECRET, 86400000L, 0, new SimpleMeterRegistry());
+        token = jwtUtil.generateToken("accountant01", "ACCOUNTANT", 1001);
+        jwtUtil.extractClaims(token);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("accountant01", "ACCOUNTANT", 1001);
+    }
+    
+    @Benchmark
+    public Claims extractClaimsCached() {
+        return jwtUtil.extractClaims(token);
+    }
+    
+    @Benchmark
+    public Claims extractClaimsUncached() {
+        return uncachedJwtUtil.extractClaims(token);
+    }
+}
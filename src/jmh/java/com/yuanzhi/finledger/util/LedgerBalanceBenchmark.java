@@ -0,0 +1,64 @@
+package com.yuanzhi.finledger.util;
+
+import com.yuanzhi.finledger.entity.Split;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分录借贷平衡校验基准
+ * 拆分数覆盖常见的一借一贷、多行明细分录和大额汇总分录
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerBalanceBenchmark {
+    
+    @Param({"2", "8", "50"})
+    private int splitCount;
+    
+    private List<Split> splits;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        splits = new ArrayList<>(splitCount);
+        BigDecimal totalDebit = BigDecimal.ZERO;
+        // 前 n-1 行为借方，最后一行贷方轧平
+        for (int i = 0; i < splitCount - 1; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(10_000_000) + 1, 2);
+            Split split = new Split();
+            split.setAccountID(i + 1);
+            split.setDebitAmount(amount);
+            splits.add(split);
+            totalDebit = totalDebit.add(amount);
+        }
+        Split credit = new Split();
+        credit.setAccountID(splitCount);
+        credit.setCreditAmount(totalDebit);
+        splits.add(credit);
+    }
+    
+    @Benchmark
+    public List<Split> requireBalanced() {
+        LedgerBalance.requireBalanced(splits);
+        return splits;
+    }
+}
@@ -0,0 +1,96 @@
+package com.yuanzhi.finledger.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 后台任务线程池配置
+ */
+@Configuration
+public class AsyncConfig {
+    
+    /**
+     * 文件导入线程池
+     * 导入在后台执行，不占用请求线程；队列有界，积压过多时拒绝新任务
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("import-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+    
+    /**
+     * 付款批次线程池
+     * 同一时间只执行一个付款批次，其余排队
+     */
+    @Bean
+    public ThreadPoolTaskExecutor paymentRunExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("payment-run-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+    
+    /**
+     * 搜索索引线程池
+     * 单线程按提交顺序写入索引，同一条记录的先后修改不会乱序；重建索引也在该线程执行，期间的增量更新排在其后
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("search-index-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+    
+    /**
+     * 重新结账线程池
+     * 单线程执行，最多排队一次：排队中的任务开始时会处理此前提交的全部请求，多余的触发直接丢弃
+     */
+    @Bean
+    public ThreadPoolTaskExecutor periodCloseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("period-close-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+    
+    /**
+     * 事件推送线程池
+     * 只在连接有待发送事件时占用线程，空闲连接不占线程；每个连接最多排队一个发送任务，队列容量与最大连接数一致。
+     * 线程数按配置固定，发送超时卡住的线程由事件推送服务临时补足，不按客户端数量或读取速度放大
+     */
+    @Bean
+    public ThreadPoolTaskExecutor eventExecutor(@Value("${finledger.events.threads:4}") int threads,
+                                                @Value("${finledger.events.max-connections:10000}") int maxConnections) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(maxConnections);
+        executor.setThreadNamePrefix("event-");
+        return executor;
+    }
+}
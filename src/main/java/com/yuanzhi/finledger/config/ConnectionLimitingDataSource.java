@@ -0,0 +1,101 @@
+package com.yuanzhi.finledger.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 连接数限流数据源
+ * 在连接池前加一个公平信号量，许可数等于连接池大小：
+ * 虚拟线程模式下并发请求远多于连接数，先在信号量上按到达顺序排队，
+ * 拿到许可后连接池必有空闲连接，不会触发连接池的获取超时
+ */
+@Slf4j
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+    
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    
+    public ConnectionLimitingDataSource(DataSource target, int maxConnections, Duration acquireTimeout) {
+        super(target);
+        this.permits = new Semaphore(maxConnections, true);
+        this.acquireTimeout = acquireTimeout;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return wrap(() -> super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return wrap(() -> super.getConnection(username, password));
+    }
+    
+    /**
+     * 正在排队等待连接的线程数
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+    
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("等待数据库连接超时: " + acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("等待数据库连接被中断", e);
+        }
+    }
+    
+    /**
+     * 包装连接，close 时归还许可（只归还一次）
+     */
+    private Connection wrap(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+    
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
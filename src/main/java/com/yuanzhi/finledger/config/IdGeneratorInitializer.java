@@ -0,0 +1,58 @@
+package com.yuanzhi.finledger.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 号段表初始化器
+ * 交易、分录、拆分等表的主键改为由 id_generators 号段表分配后，
+ * 需要保证号段起始值大于表中已有的自增ID，避免与历史数据冲突
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class IdGeneratorInitializer implements InitializingBean {
+    
+    /**
+     * 号段步长，需与实体上 @TableGenerator 的 allocationSize 保持一致
+     */
+    public static final int ALLOCATION_SIZE = 50;
+    
+    /**
+     * 号段名称 -> 对应数据表
+     */
+    private static final Map<String, String> GENERATORS = Map.of(
+            "transactions", "transactions",
+            "entries", "entries",
+            "splits", "splits"
+    );
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void afterPropertiesSet() {
+        GENERATORS.forEach((generatorName, tableName) -> {
+            String nextValue = "SELECT COALESCE(MAX(id), 0) + " + (ALLOCATION_SIZE + 1) + " FROM " + tableName;
+            // 号段记录不存在时插入；已存在但落后于历史自增ID时（如建表时写入的初始值）将其推进
+            // 起始值跳过一个完整号段，以兼容不同的号段优化策略
+            int changed = jdbcTemplate.update(
+                    "INSERT INTO id_generators (gen_name, next_val) SELECT ?, (" + nextValue + ") FROM DUAL " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE gen_name = ?)",
+                    generatorName, generatorName);
+            changed += jdbcTemplate.update(
+                    "UPDATE id_generators SET next_val = (" + nextValue + ") " +
+                    "WHERE gen_name = ? AND next_val <= (SELECT COALESCE(MAX(id), 0) FROM " + tableName + ")",
+                    generatorName);
+            if (changed > 0) {
+                log.info("号段初始化完成: generator={}", generatorName);
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.yuanzhi.finledger.config;
 
 import com.yuanzhi.finledger.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,13 +20,18 @@ import java.util.Collections;
 
 /**
  * JWT 认证过滤器
- * 从请求头中提取 JWT token 并验证
+ * 从请求头（事件流接口也可以是查询参数）中提取 JWT token 并验证
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
+    /**
+     * 事件流接口路径
+     */
+    public static final String EVENT_STREAM_PATH = "/api/events";
+    
     private final JwtUtil jwtUtil;
     
     @Override
@@ -35,24 +41,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
         
-        // 获取 Authorization 请求头
-        String authHeader = request.getHeader("Authorization");
+        // 提取 token：Authorization 请求头，事件流连接也可以用 token 查询参数
+        String token = resolveToken(request);
         
-        // 如果没有 Authorization 头或格式不正确，直接放行（由 Spring Security 处理）
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        // 如果没有 token，直接放行（由 Spring Security 处理）
+        if (token == null) {
             filterChain.doFilter(request, response);
             return;
         }
         
-        // 提取 token
-        String token = authHeader.substring(7);
-        
         try {
-            // 验证 token
-            if (jwtUtil.validateToken(token)) {
+            // 验证 token（每个请求只解析一次，重复的 token 直接命中缓存）
+            Claims claims = jwtUtil.validateAndExtract(token);
+            if (claims != null) {
                 // 从 token 中提取用户信息
-                String username = jwtUtil.extractUsername(token);
-                String role = jwtUtil.extractRole(token);
+                String username = claims.getSubject();
+                String role = claims.get("role", String.class);
                 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     // 创建认证对象
@@ -78,6 +82,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    /**
+     * 浏览器 EventSource 无法设置请求头，事件流接口允许通过 token 查询参数传递；
+     * 其他接口只接受请求头，避免 token 出现在普通请求的访问日志中
+     */
+    private static String resolveToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        if (EVENT_STREAM_PATH.equals(request.getRequestURI())) {
+            String token = request.getParameter("token");
+            return token != null && !token.isBlank() ? token : null;
+        }
+        return null;
+    }
 }
-
-
@@ -0,0 +1,91 @@
+package com.yuanzhi.finledger.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 读写分离配置（配置 finledger.datasource.replica.url 后启用）
+ * 主库沿用 spring.datasource.*，从库使用 finledger.datasource.replica.*，各自独立的连接池；
+ * 列表查询、报表等只读事务走从库，记账等写事务走主库
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "finledger.datasource.replica.url")
+public class ReadReplicaConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    @Bean
+    @ConfigurationProperties("finledger.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${finledger.datasource.replica.url}") String url,
+            @Value("${finledger.datasource.replica.username:#{null}}") String username,
+            @Value("${finledger.datasource.replica.password:#{null}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create(properties.getClassLoader())
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username != null ? username : properties.determineUsername())
+                .password(password != null ? password : properties.determinePassword())
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+    
+    /**
+     * 读写事务提交后记录用户，供读己之写策略使用（Spring Boot 自动注册到事务管理器）
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${finledger.datasource.replica.sticky-window:5s}") Duration stickyWindow) {
+        return new ReadYourWritesTracker(stickyWindow);
+    }
+    
+    /**
+     * 应用使用的数据源：延迟取连接，到第一条语句时再按事务只读标记和陈旧度策略选择主库或从库
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            ReadYourWritesTracker tracker,
+            @Value("${finledger.datasource.replica.staleness:READ_YOUR_WRITES}") ReplicaRoutingDataSource.StalenessPolicy policy,
+            @Value("${finledger.datasource.replica.fallback-to-primary:true}") boolean fallbackToPrimary) {
+        log.info("读写分离已启用: staleness={}, fallbackToPrimary={}", policy, fallbackToPrimary);
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, policy, tracker, fallbackToPrimary));
+    }
+    
+    /**
+     * 每个事务结束即归还连接，下一个事务重新路由。
+     * 默认模式下 Hibernate 会话在整个请求内（open-in-view）持有同一连接，先读后写时写操作会落到从库
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
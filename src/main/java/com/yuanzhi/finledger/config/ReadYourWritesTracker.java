@@ -0,0 +1,94 @@
+package com.yuanzhi.finledger.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yuanzhi.finledger.util.SecurityUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * 读己之写跟踪
+ * 读写事务提交后记下当前用户，粘滞窗口内该用户的只读事务回主库读取，避免刚提交的数据因复制延迟在从库查不到。
+ * 提交时间同时通过 X-Last-Write 响应头返回给客户端，客户端在后续请求中带回该请求头，
+ * 请求落到其他节点时同样回主库读取，多实例部署无需会话粘滞
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+    
+    /**
+     * 最近一次写事务提交时间（毫秒时间戳）
+     */
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+    
+    private static final long MAX_TRACKED_USERS = 100_000;
+    
+    private final Cache<String, Boolean> recentWriters;
+    private final long stickyWindowMillis;
+    
+    public ReadYourWritesTracker(Duration stickyWindow) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_USERS)
+                .expireAfterWrite(stickyWindow)
+                .build();
+        this.stickyWindowMillis = stickyWindow.toMillis();
+    }
+    
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly()) {
+            return;
+        }
+        String username = SecurityUtil.getCurrentUsername();
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+        ServletRequestAttributes attributes = currentRequestAttributes();
+        HttpServletResponse response = attributes != null ? attributes.getResponse() : null;
+        if (response != null && !response.isCommitted()) {
+            response.setHeader(LAST_WRITE_HEADER, String.valueOf(System.currentTimeMillis()));
+        }
+    }
+    
+    /**
+     * 当前用户是否在粘滞窗口内提交过写事务（本节点记录或请求头携带的提交时间）
+     */
+    public boolean isRecentWriter() {
+        String username = SecurityUtil.getCurrentUsername();
+        if (username != null && recentWriters.getIfPresent(username) != null) {
+            return true;
+        }
+        return lastWriteInWindow();
+    }
+    
+    /**
+     * 请求头中的提交时间是否在粘滞窗口内；各节点时钟有偏差，未来时间同样按窗口放宽
+     */
+    private boolean lastWriteInWindow() {
+        ServletRequestAttributes attributes = currentRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        String value = request.getHeader(LAST_WRITE_HEADER);
+        if (value == null) {
+            return false;
+        }
+        try {
+            long elapsed = System.currentTimeMillis() - Long.parseLong(value.trim());
+            return Math.abs(elapsed) < stickyWindowMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    private static ServletRequestAttributes currentRequestAttributes() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes : null;
+    }
+}
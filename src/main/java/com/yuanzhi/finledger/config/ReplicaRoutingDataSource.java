@@ -0,0 +1,85 @@
+package com.yuanzhi.finledger.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 读写分离路由数据源
+ * 只读事务（@Transactional(readOnly = true)）路由到从库，其余走主库。
+ * 需由 LazyConnectionDataSourceProxy 包装：真正取连接推迟到第一条语句执行时，此时事务的只读标记已经设置
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    
+    /**
+     * 从库读取的陈旧度策略
+     */
+    public enum StalenessPolicy {
+        /** 只读事务一律走从库，接受复制延迟 */
+        REPLICA,
+        /** 只读事务走从库，但用户在粘滞窗口内写过数据时回主库读取（读己之写） */
+        READ_YOUR_WRITES,
+        /** 全部走主库，用于从库维护或复制延迟过大时临时切换 */
+        PRIMARY
+    }
+    
+    private final DataSource primary;
+    private final DataSource replica;
+    private final StalenessPolicy policy;
+    private final ReadYourWritesTracker tracker;
+    private final boolean fallbackToPrimary;
+    
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, StalenessPolicy policy,
+                                    ReadYourWritesTracker tracker, boolean fallbackToPrimary) {
+        this.primary = primary;
+        this.replica = replica;
+        this.policy = policy;
+        this.tracker = tracker;
+        this.fallbackToPrimary = fallbackToPrimary;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+    
+    /**
+     * 当前线程的读取是否应走从库
+     */
+    boolean useReplica() {
+        if (policy == StalenessPolicy.PRIMARY || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        return policy == StalenessPolicy.REPLICA || !tracker.isRecentWriter();
+    }
+    
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!useReplica()) {
+            return source.get(primary);
+        }
+        try {
+            return source.get(replica);
+        } catch (SQLException e) {
+            if (!fallbackToPrimary) {
+                throw e;
+            }
+            log.warn("从库连接获取失败，回退主库读取: {}", e.getMessage());
+            return source.get(primary);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
@@ -1,8 +1,12 @@
 package com.yuanzhi.finledger.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -24,9 +28,27 @@ public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    /**
+     * Actuator 管理端口（只绑定内网地址），管理端口启动后记录实际端口，未单独配置时为 -1
+     */
+    private volatile int managementPort = -1;
+    
+    /**
+     * 管理端口在独立的子容器中启动，其初始化事件会传递到本容器
+     */
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort = event.getWebServer().getPort();
+        }
+    }
+    
+    /**
+     * BCrypt 强度可配置；调高后，旧强度的密码哈希会在用户下次登录时自动升级
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${finledger.password-hashing.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
     
     @Bean
@@ -39,6 +61,10 @@ public class SecurityConfig {
                 // 允许匿名访问的路径
                 .requestMatchers("/", "/error", "/favicon.ico", "/health").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
+                // Actuator 端点只在内网管理端口上免认证，应用端口上的请求仍需登录
+                .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort).permitAll()
+                // 异步分发（事件流、流式导出结束时）沿用首次分发的鉴权结果，JWT 过滤器不会再次执行
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // 其他所有请求需要认证
                 .anyRequest().authenticated()
             )
@@ -55,6 +81,8 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
         configuration.setAllowCredentials(true);
+        // 读己之写：允许前端读取写请求返回的提交时间并在后续请求中带回
+        configuration.setExposedHeaders(List.of(ReadYourWritesTracker.LAST_WRITE_HEADER));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -0,0 +1,38 @@
+package com.yuanzhi.finledger.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程模式配置（需 JDK 21+，通过 spring.threads.virtual.enabled=true 开启）
+ * Spring Boot 会让 Tomcat 和任务执行器使用虚拟线程；此处额外在数据源前加连接数限流
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                int maxConnections = hikari.getMaximumPoolSize();
+                Duration acquireTimeout = environment.getProperty("finledger.datasource.acquire-timeout",
+                        Duration.class, Duration.ofMinutes(2));
+                log.info("虚拟线程模式: 数据源连接限流 maxConnections={}, acquireTimeout={}", maxConnections, acquireTimeout);
+                return new ConnectionLimitingDataSource(hikari, maxConnections, acquireTimeout);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.yuanzhi.finledger.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 写事务提交计数
+ * 业务代码在写事务中标记写入的表，事务提交成功后该表的计数递增；后台预计算任务比较相关表的计数判断数据是否有变动，
+ * 无关的写入（如分录过账）不会触发重算。只统计本节点的提交
+ */
+@Component
+public class WriteCommitTracker {
+    
+    public static final String TRANSACTIONS = "transactions";
+    public static final String PAYMENTS = "payments";
+    
+    private final Map<String, AtomicLong> commits = new ConcurrentHashMap<>();
+    
+    /**
+     * 标记当前事务写入了指定表，事务提交后计数；不在事务中时立即计数
+     */
+    public void markWritten(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(table);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment(table);
+            }
+        });
+    }
+    
+    /**
+     * 指定表的提交计数之和
+     */
+    public long getCommitCount(String... tables) {
+        long count = 0;
+        for (String table : tables) {
+            AtomicLong counter = commits.get(table);
+            count += counter != null ? counter.get() : 0;
+        }
+        return count;
+    }
+    
+    private void increment(String table) {
+        commits.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -1,5 +1,7 @@
 package com.yuanzhi.finledger.controller;
 
+import com.yuanzhi.finledger.dto.AccountBalance;
+import com.yuanzhi.finledger.dto.AccountTreeNode;
 import com.yuanzhi.finledger.entity.Account;
 import com.yuanzhi.finledger.exception.ForbiddenException;
 import com.yuanzhi.finledger.service.AccountService;
@@ -8,9 +10,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 账户控制器
@@ -65,6 +69,21 @@ public class AccountController {
         return ResponseEntity.ok(accountService.getRootAccounts());
     }
     
+    /**
+     * 获取完整科目树
+     * 一次返回嵌套层级，以版本号作为 ETag，未变化时返回 304
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<List<AccountTreeNode>> getAccountTree(WebRequest request) {
+        log.debug("获取科目树");
+        Map.Entry<Long, List<AccountTreeNode>> tree = accountService.getAccountTree();
+        String etag = "\"accounts-" + tree.getKey() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(tree.getValue());
+    }
+    
     /**
      * 获取子账户
      */
@@ -83,6 +102,15 @@ public class AccountController {
         return ResponseEntity.ok(accountService.getAccountById(id));
     }
     
+    /**
+     * 获取科目余额
+     */
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<AccountBalance> getAccountBalance(@PathVariable Integer id) {
+        log.debug("查询科目余额: accountId={}", id);
+        return ResponseEntity.ok(accountService.getAccountBalance(id));
+    }
+    
     /**
      * 更新账户信息
      * 仅财务经理可以更新
@@ -0,0 +1,38 @@
+package com.yuanzhi.finledger.controller;
+
+import com.yuanzhi.finledger.dto.DashboardSummary;
+import com.yuanzhi.finledger.exception.ForbiddenException;
+import com.yuanzhi.finledger.service.DashboardService;
+import com.yuanzhi.finledger.util.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 首页控制器
+ * 提供按角色汇总的首页概览
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class DashboardController {
+    
+    private final DashboardService dashboardService;
+    
+    /**
+     * 获取首页概览
+     * 内容取决于当前用户角色，结果在服务端短时间缓存
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummary> getSummary() {
+        String role = SecurityUtil.getCurrentRole();
+        log.debug("获取首页概览: role={}", role);
+        if (role == null) {
+            throw new ForbiddenException("未登录用户不能查看首页概览");
+        }
+        return ResponseEntity.ok(dashboardService.getSummary(role));
+    }
+}
@@ -1,17 +1,25 @@
 package com.yuanzhi.finledger.controller;
 
+import com.yuanzhi.finledger.dto.BulkEntryResult;
+import com.yuanzhi.finledger.dto.BulkStatusRequest;
+import com.yuanzhi.finledger.dto.BulkStatusResult;
+import com.yuanzhi.finledger.dto.CreateEntryRequest;
+import com.yuanzhi.finledger.dto.CursorPage;
+import com.yuanzhi.finledger.dto.EntryView;
+import com.yuanzhi.finledger.dto.SplitView;
 import com.yuanzhi.finledger.entity.Entry;
-import com.yuanzhi.finledger.entity.Split;
 import com.yuanzhi.finledger.exception.ForbiddenException;
 import com.yuanzhi.finledger.service.EntryService;
 import com.yuanzhi.finledger.util.SecurityUtil;
-import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -27,73 +35,102 @@ public class EntryController {
     
     private final EntryService entryService;
     
-    /**
-     * 创建分录请求DTO
-     */
-    @Data
-    static class CreateEntryRequest {
-        @Valid
-        private Entry entry;
-        @Valid
-        private List<Split> splits;
-    }
-    
     /**
      * 创建分录
      * 仅会计可以创建
      */
     @PostMapping
-    public ResponseEntity<Entry> createEntry(@Valid @RequestBody CreateEntryRequest request) {
+    public ResponseEntity<EntryView> createEntry(@Valid @RequestBody CreateEntryRequest request) {
         log.info("创建分录请求: transactionId={}", request.getEntry().getTransactionID());
         if (!SecurityUtil.isAccountant()) {
             throw new ForbiddenException("只有会计可以创建分录");
         }
-        return ResponseEntity.ok(entryService.createEntry(request.getEntry(), request.getSplits()));
+        Entry entry = entryService.createEntry(request.getEntry(), request.getSplits());
+        return ResponseEntity.ok(entryService.toEntryView(entry, false));
+    }
+    
+    /**
+     * 批量过账
+     * 仅会计可以创建，返回每条分录的处理结果
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkEntryResult>> createEntries(@Valid @RequestBody List<CreateEntryRequest> requests) {
+        log.info("批量过账请求: entryCount={}", requests.size());
+        if (!SecurityUtil.isAccountant()) {
+            throw new ForbiddenException("只有会计可以创建分录");
+        }
+        return ResponseEntity.ok(entryService.createEntries(requests));
     }
     
     /**
      * 获取所有分录
+     * include=splits 时一并返回拆分（批量加载，不逐条查询）
      */
     @GetMapping
-    public ResponseEntity<List<Entry>> getAllEntries() {
-        log.debug("获取所有分录");
-        return ResponseEntity.ok(entryService.getAllEntries());
+    public ResponseEntity<List<EntryView>> getAllEntries(@RequestParam(required = false) String include) {
+        log.debug("获取所有分录: include={}", include);
+        return ResponseEntity.ok(entryService.toEntryViews(entryService.getAllEntries(), includeSplits(include)));
+    }
+    
+    /**
+     * 游标分页获取分录
+     * 首页不传 cursor，之后传上一页返回的 nextCursor；日期范围均包含端点当天
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<EntryView>> getEntryPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String include) {
+        log.debug("分页获取分录: status={}, userId={}, cursor={}", status, userId, cursor);
+        CursorPage<Entry> page = entryService.getEntryPage(status, userId,
+                startDate != null ? startDate.atStartOfDay() : null,
+                endDate != null ? endDate.plusDays(1).atStartOfDay() : null,
+                cursor, size);
+        return ResponseEntity.ok(new CursorPage<>(entryService.toEntryViews(page.getItems(), includeSplits(include)),
+                page.getNextCursor(), page.isHasMore()));
     }
     
     /**
      * 获取待审核分录
      */
     @GetMapping("/submitted")
-    public ResponseEntity<List<Entry>> getSubmittedEntries() {
+    public ResponseEntity<List<EntryView>> getSubmittedEntries(@RequestParam(required = false) String include) {
         log.debug("获取待审核分录");
-        return ResponseEntity.ok(entryService.getSubmittedEntries());
+        return ResponseEntity.ok(entryService.toEntryViews(entryService.getSubmittedEntries(), includeSplits(include)));
     }
     
     /**
      * 根据交易ID获取分录
      */
     @GetMapping("/transaction/{transactionId}")
-    public ResponseEntity<List<Entry>> getEntriesByTransaction(@PathVariable Integer transactionId) {
+    public ResponseEntity<List<EntryView>> getEntriesByTransaction(@PathVariable Integer transactionId,
+                                                                   @RequestParam(required = false) String include) {
         log.debug("根据交易ID获取分录: transactionId={}", transactionId);
-        return ResponseEntity.ok(entryService.getEntriesByTransaction(transactionId));
+        return ResponseEntity.ok(entryService.toEntryViews(entryService.getEntriesByTransaction(transactionId),
+                includeSplits(include)));
     }
     
     /**
      * 根据分录ID获取拆分
      */
     @GetMapping("/{id}/splits")
-    public ResponseEntity<List<Split>> getSplitsByEntry(@PathVariable Integer id) {
+    public ResponseEntity<List<SplitView>> getSplitsByEntry(@PathVariable Integer id) {
         log.debug("查询分录拆分: entryId={}", id);
-        return ResponseEntity.ok(entryService.getSplitsByEntry(id));
+        return ResponseEntity.ok(entryService.toSplitViews(entryService.getSplitsByEntry(id)));
     }
     
     /**
      * 根据ID获取分录
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Entry> getEntryById(@PathVariable Integer id) {
+    public ResponseEntity<EntryView> getEntryById(@PathVariable Integer id,
+                                                  @RequestParam(required = false) String include) {
         log.debug("查询分录: entryId={}", id);
-        return ResponseEntity.ok(entryService.getEntryById(id));
+        return ResponseEntity.ok(entryService.toEntryView(entryService.getEntryById(id), includeSplits(include)));
     }
     
     /**
@@ -101,9 +138,35 @@ public class EntryController {
      * 会计可以提交，财务经理可以审核
      */
     @PutMapping("/{id}/status")
-    public ResponseEntity<Entry> updateEntryStatus(@PathVariable Integer id, @RequestParam String status) {
+    public ResponseEntity<EntryView> updateEntryStatus(@PathVariable Integer id, @RequestParam String status) {
         log.info("更新分录状态: entryId={}, status={}", id, status);
-        
+        checkStatusPermission(status);
+        return ResponseEntity.ok(entryService.toEntryView(entryService.updateEntryStatus(id, status), false));
+    }
+    
+    /**
+     * 批量更新分录状态
+     * 按ID列表或过滤条件一次处理整个待审核队列，权限要求与单条更新相同，返回每条分录的处理结果
+     */
+    @PutMapping("/status/bulk")
+    public ResponseEntity<List<BulkStatusResult>> updateEntryStatuses(@RequestBody BulkStatusRequest request) {
+        log.info("批量更新分录状态: status={}, idCount={}", request.getStatus(),
+                request.getIds() != null ? request.getIds().size() : null);
+        checkStatusPermission(request.getStatus());
+        return ResponseEntity.ok(entryService.updateEntryStatuses(request));
+    }
+    
+    /**
+     * 删除分录
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteEntry(@PathVariable Integer id) {
+        log.info("删除分录: entryId={}", id);
+        entryService.deleteEntry(id);
+        return ResponseEntity.ok().build();
+    }
+    
+    private static void checkStatusPermission(String status) {
         // 会计可以提交（DRAFT -> SUBMITTED）
         if ("SUBMITTED".equals(status) && !SecurityUtil.isAccountant()) {
             throw new ForbiddenException("只有会计可以提交分录");
@@ -113,18 +176,10 @@ public class EntryController {
         if (("APPROVED".equals(status) || "REJECTED".equals(status)) && !SecurityUtil.isManager()) {
             throw new ForbiddenException("只有财务经理可以审核分录");
         }
-        
-        return ResponseEntity.ok(entryService.updateEntryStatus(id, status));
     }
     
-    /**
-     * 删除分录
-     */
-    @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteEntry(@PathVariable Integer id) {
-        log.info("删除分录: entryId={}", id);
-        entryService.deleteEntry(id);
-        return ResponseEntity.ok().build();
+    private static boolean includeSplits(String include) {
+        return include != null && Arrays.asList(include.split(",")).contains("splits");
     }
 }
 
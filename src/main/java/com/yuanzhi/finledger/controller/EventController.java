@@ -0,0 +1,39 @@
+package com.yuanzhi.finledger.controller;
+
+import com.yuanzhi.finledger.config.JwtAuthenticationFilter;
+import com.yuanzhi.finledger.exception.ForbiddenException;
+import com.yuanzhi.finledger.service.LedgerEventService;
+import com.yuanzhi.finledger.util.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 事件推送控制器
+ * 以 Server-Sent Events 推送分录、支付、交易状态变化，替代首页轮询
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class EventController {
+    
+    private final LedgerEventService ledgerEventService;
+    
+    /**
+     * 订阅事件流
+     * 只推送当前角色相关的事件；浏览器 EventSource 不能设置请求头，可通过 ?token= 传递 JWT
+     */
+    @GetMapping(value = JwtAuthenticationFilter.EVENT_STREAM_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        String username = SecurityUtil.getCurrentUsername();
+        String role = SecurityUtil.getCurrentRole();
+        log.debug("订阅事件流: username={}, role={}", username, role);
+        if (role == null) {
+            throw new ForbiddenException("未登录用户不能订阅事件流");
+        }
+        return ledgerEventService.subscribe(username, role);
+    }
+}
@@ -0,0 +1,56 @@
+package com.yuanzhi.finledger.controller;
+
+import com.yuanzhi.finledger.exception.ForbiddenException;
+import com.yuanzhi.finledger.service.ExportService;
+import com.yuanzhi.finledger.util.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * 数据导出控制器
+ * 以流式响应导出全量台账数据，供审计使用
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class ExportController {
+    
+    private final ExportService exportService;
+    
+    /**
+     * 导出交易、分录或拆分
+     * 仅财务经理和老板可以导出；format 为 csv 或 ndjson，gzip=true 时输出压缩文件
+     */
+    @GetMapping("/{resource}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String resource,
+                                                        @RequestParam(defaultValue = ExportService.FORMAT_CSV) String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info("数据导出请求: resource={}, format={}, gzip={}, user={}",
+                resource, format, gzip, SecurityUtil.getCurrentUsername());
+        if (!SecurityUtil.isManagerOrBoss()) {
+            throw new ForbiddenException("只有财务经理和老板可以导出数据");
+        }
+        exportService.validate(resource, format);
+        
+        String filename = resource + "-" + LocalDate.now() + "." + format + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : ExportService.FORMAT_CSV.equals(format) ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+        StreamingResponseBody body = out -> exportService.export(resource, format, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
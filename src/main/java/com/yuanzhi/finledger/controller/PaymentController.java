@@ -1,15 +1,21 @@
 package com.yuanzhi.finledger.controller;
 
+import com.yuanzhi.finledger.dto.BulkStatusRequest;
+import com.yuanzhi.finledger.dto.BulkStatusResult;
+import com.yuanzhi.finledger.dto.CursorPage;
+import com.yuanzhi.finledger.dto.PaymentView;
 import com.yuanzhi.finledger.entity.Payment;
 import com.yuanzhi.finledger.exception.ForbiddenException;
 import com.yuanzhi.finledger.service.PaymentService;
 import com.yuanzhi.finledger.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -29,45 +35,66 @@ public class PaymentController {
      * 创建支付记录
      */
     @PostMapping
-    public ResponseEntity<Payment> createPayment(@Valid @RequestBody Payment payment) {
+    public ResponseEntity<PaymentView> createPayment(@Valid @RequestBody Payment payment) {
         log.info("创建支付记录请求: transactionId={}", payment.getTransactionID());
-        return ResponseEntity.ok(paymentService.createPayment(payment));
+        return ResponseEntity.ok(paymentService.toPaymentView(paymentService.createPayment(payment)));
     }
     
     /**
      * 获取所有支付记录
      */
     @GetMapping
-    public ResponseEntity<List<Payment>> getAllPayments() {
+    public ResponseEntity<List<PaymentView>> getAllPayments() {
         log.debug("获取所有支付记录");
-        return ResponseEntity.ok(paymentService.getAllPayments());
+        return ResponseEntity.ok(paymentService.toPaymentViews(paymentService.getAllPayments()));
+    }
+    
+    /**
+     * 游标分页获取支付记录
+     * 首页不传 cursor，之后传上一页返回的 nextCursor；日期范围均包含端点当天
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<PaymentView>> getPaymentPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer approverId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        log.debug("分页获取支付记录: status={}, approverId={}, cursor={}", status, approverId, cursor);
+        CursorPage<Payment> page = paymentService.getPaymentPage(status, approverId,
+                startDate != null ? startDate.atStartOfDay() : null,
+                endDate != null ? endDate.plusDays(1).atStartOfDay() : null,
+                cursor, size);
+        return ResponseEntity.ok(new CursorPage<>(paymentService.toPaymentViews(page.getItems()),
+                page.getNextCursor(), page.isHasMore()));
     }
     
     /**
      * 获取待审批支付
      */
     @GetMapping("/pending")
-    public ResponseEntity<List<Payment>> getPendingPayments() {
+    public ResponseEntity<List<PaymentView>> getPendingPayments() {
         log.debug("获取待审批支付");
-        return ResponseEntity.ok(paymentService.getPendingPayments());
+        return ResponseEntity.ok(paymentService.toPaymentViews(paymentService.getPendingPayments()));
     }
     
     /**
      * 根据交易ID获取支付记录
      */
     @GetMapping("/transaction/{transactionId}")
-    public ResponseEntity<List<Payment>> getPaymentsByTransaction(@PathVariable Integer transactionId) {
+    public ResponseEntity<List<PaymentView>> getPaymentsByTransaction(@PathVariable Integer transactionId) {
         log.debug("根据交易ID获取支付记录: transactionId={}", transactionId);
-        return ResponseEntity.ok(paymentService.getPaymentsByTransaction(transactionId));
+        return ResponseEntity.ok(paymentService.toPaymentViews(paymentService.getPaymentsByTransaction(transactionId)));
     }
     
     /**
      * 根据ID获取支付记录
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Payment> getPaymentById(@PathVariable Integer id) {
+    public ResponseEntity<PaymentView> getPaymentById(@PathVariable Integer id) {
         log.debug("查询支付记录: paymentId={}", id);
-        return ResponseEntity.ok(paymentService.getPaymentById(id));
+        return ResponseEntity.ok(paymentService.toPaymentView(paymentService.getPaymentById(id)));
     }
     
     /**
@@ -75,12 +102,27 @@ public class PaymentController {
      * 财务经理和老板可以审批
      */
     @PutMapping("/{id}/approve")
-    public ResponseEntity<Payment> approvePayment(@PathVariable Integer id, @RequestParam Integer approverId) {
+    public ResponseEntity<PaymentView> approvePayment(@PathVariable Integer id, @RequestParam Integer approverId) {
         log.info("审批支付: paymentId={}, approverId={}", id, approverId);
         if (!SecurityUtil.isManagerOrBoss()) {
             throw new ForbiddenException("只有财务经理和老板可以审批支付");
         }
-        return ResponseEntity.ok(paymentService.approvePayment(id, approverId));
+        return ResponseEntity.ok(paymentService.toPaymentView(paymentService.approvePayment(id, approverId)));
+    }
+    
+    /**
+     * 批量审批支付
+     * 财务经理和老板可以审批；status 为 APPROVED（默认）或 REJECTED，按ID列表或支付日期范围处理待审批支付
+     */
+    @PutMapping("/approve/bulk")
+    public ResponseEntity<List<BulkStatusResult>> reviewPayments(@RequestBody BulkStatusRequest request,
+                                                                 @RequestParam Integer approverId) {
+        log.info("批量审批支付: status={}, approverId={}, idCount={}", request.getStatus(), approverId,
+                request.getIds() != null ? request.getIds().size() : null);
+        if (!SecurityUtil.isManagerOrBoss()) {
+            throw new ForbiddenException("只有财务经理和老板可以审批支付");
+        }
+        return ResponseEntity.ok(paymentService.reviewPayments(request, approverId));
     }
     
     /**
@@ -88,12 +130,12 @@ public class PaymentController {
      * 财务经理和老板可以拒绝
      */
     @PutMapping("/{id}/reject")
-    public ResponseEntity<Payment> rejectPayment(@PathVariable Integer id, @RequestParam Integer approverId) {
+    public ResponseEntity<PaymentView> rejectPayment(@PathVariable Integer id, @RequestParam Integer approverId) {
         log.info("拒绝支付: paymentId={}, approverId={}", id, approverId);
         if (!SecurityUtil.isManagerOrBoss()) {
             throw new ForbiddenException("只有财务经理和老板可以拒绝支付");
         }
-        return ResponseEntity.ok(paymentService.rejectPayment(id, approverId));
+        return ResponseEntity.ok(paymentService.toPaymentView(paymentService.rejectPayment(id, approverId)));
     }
     
     /**
@@ -101,12 +143,12 @@ public class PaymentController {
      * 仅老板可以完成支付
      */
     @PutMapping("/{id}/complete")
-    public ResponseEntity<Payment> completePayment(@PathVariable Integer id) {
+    public ResponseEntity<PaymentView> completePayment(@PathVariable Integer id) {
         log.info("完成支付: paymentId={}", id);
         if (!SecurityUtil.isBoss()) {
             throw new ForbiddenException("只有老板可以完成支付");
         }
-        return ResponseEntity.ok(paymentService.completePayment(id));
+        return ResponseEntity.ok(paymentService.toPaymentView(paymentService.completePayment(id)));
     }
     
     /**
@@ -0,0 +1,101 @@
+package com.yuanzhi.finledger.controller;
+
+import com.yuanzhi.finledger.entity.PaymentRun;
+import com.yuanzhi.finledger.exception.ForbiddenException;
+import com.yuanzhi.finledger.service.PaymentRunService;
+import com.yuanzhi.finledger.util.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 付款批次控制器
+ * 发起付款批次、查询进度及下载银行付款文件
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/payments/runs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class PaymentRunController {
+    
+    private final PaymentRunService paymentRunService;
+    
+    /**
+     * 发起付款批次
+     * 仅老板可以发起；支付日期不晚于 cutoffDate（默认当天）的已审批支付全部标记为已支付
+     */
+    @PostMapping
+    public ResponseEntity<PaymentRun> startRun(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cutoffDate) {
+        log.info("发起付款批次: cutoffDate={}", cutoffDate);
+        if (!SecurityUtil.isBoss()) {
+            throw new ForbiddenException("只有老板可以发起付款批次");
+        }
+        return ResponseEntity.ok(paymentRunService.start(cutoffDate, SecurityUtil.getCurrentUsername()));
+    }
+    
+    /**
+     * 获取付款批次列表
+     */
+    @GetMapping
+    public ResponseEntity<List<PaymentRun>> getRuns() {
+        log.debug("获取付款批次列表");
+        if (!SecurityUtil.isManagerOrBoss()) {
+            throw new ForbiddenException("只有财务经理和老板可以查看付款批次");
+        }
+        return ResponseEntity.ok(paymentRunService.getRuns());
+    }
+    
+    /**
+     * 查询付款批次进度
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<PaymentRun> getRun(@PathVariable Integer id) {
+        log.debug("查询付款批次: runId={}", id);
+        if (!SecurityUtil.isManagerOrBoss()) {
+            throw new ForbiddenException("只有财务经理和老板可以查看付款批次");
+        }
+        return ResponseEntity.ok(paymentRunService.getRun(id));
+    }
+    
+    /**
+     * 继续执行中断或失败的付款批次
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<PaymentRun> resumeRun(@PathVariable Integer id) {
+        log.info("继续执行付款批次: runId={}", id);
+        if (!SecurityUtil.isBoss()) {
+            throw new ForbiddenException("只有老板可以发起付款批次");
+        }
+        return ResponseEntity.ok(paymentRunService.resume(id));
+    }
+    
+    /**
+     * 下载付款文件（ISO 20022 pain.001）
+     */
+    @GetMapping("/{id}/file")
+    public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable Integer id) {
+        log.info("下载付款文件: runId={}, user={}", id, SecurityUtil.getCurrentUsername());
+        if (!SecurityUtil.isManagerOrBoss()) {
+            throw new ForbiddenException("只有财务经理和老板可以下载付款文件");
+        }
+        PaymentRun run = paymentRunService.getCompletedRun(id);
+        
+        StreamingResponseBody body = out -> paymentRunService.writeFile(run, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_XML)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("pain001-run-" + id + ".xml").build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,133 @@
+package com.yuanzhi.finledger.controller;
+
+import com.yuanzhi.finledger.dto.AgingReport;
+import com.yuanzhi.finledger.dto.BalanceSheetReport;
+import com.yuanzhi.finledger.dto.CashFlowForecast;
+import com.yuanzhi.finledger.dto.IncomeStatementReport;
+import com.yuanzhi.finledger.dto.TrialBalanceReport;
+import com.yuanzhi.finledger.entity.AccountPeriodBalance;
+import com.yuanzhi.finledger.exception.ForbiddenException;
+import com.yuanzhi.finledger.service.CashFlowForecastService;
+import com.yuanzhi.finledger.service.PeriodCloseService;
+import com.yuanzhi.finledger.service.ReportService;
+import com.yuanzhi.finledger.util.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 报表控制器
+ * 提供服务端汇总的财务报表
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class ReportController {
+    
+    private final ReportService reportService;
+    private final PeriodCloseService periodCloseService;
+    private final CashFlowForecastService cashFlowForecastService;
+    
+    /**
+     * 试算平衡表
+     * 默认统计本月
+     */
+    @GetMapping("/trial-balance")
+    public ResponseEntity<TrialBalanceReport> getTrialBalance(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.withDayOfMonth(1);
+        log.debug("获取试算平衡表: startDate={}, endDate={}", start, end);
+        return ResponseEntity.ok(reportService.getTrialBalance(start, end));
+    }
+    
+    /**
+     * 利润表
+     * 默认统计本年
+     */
+    @GetMapping("/income-statement")
+    public ResponseEntity<IncomeStatementReport> getIncomeStatement(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.withDayOfYear(1);
+        log.debug("获取利润表: startDate={}, endDate={}", start, end);
+        return ResponseEntity.ok(reportService.getIncomeStatement(start, end));
+    }
+    
+    /**
+     * 资产负债表
+     * 默认截至今天
+     */
+    @GetMapping("/balance-sheet")
+    public ResponseEntity<BalanceSheetReport> getBalanceSheet(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOfDate) {
+        LocalDate asOf = asOfDate != null ? asOfDate : LocalDate.now();
+        log.debug("获取资产负债表: asOfDate={}", asOf);
+        return ResponseEntity.ok(reportService.getBalanceSheet(asOf));
+    }
+    
+    /**
+     * 账龄分析表
+     * 默认截至今天，按供应商/客户统计未结清交易的逾期金额
+     */
+    @GetMapping("/aging")
+    public ResponseEntity<AgingReport> getAgingReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOfDate) {
+        LocalDate asOf = asOfDate != null ? asOfDate : LocalDate.now();
+        log.debug("获取账龄分析表: asOfDate={}", asOf);
+        return ResponseEntity.ok(reportService.getAgingReport(asOf));
+    }
+    
+    /**
+     * 现金流预测
+     * 返回后台预计算的结果，数据变动后最多延迟一个刷新周期
+     */
+    @GetMapping("/cash-flow-forecast")
+    public ResponseEntity<CashFlowForecast> getCashFlowForecast() {
+        log.debug("获取现金流预测");
+        if (!SecurityUtil.isManagerOrBoss()) {
+            throw new ForbiddenException("只有财务经理和老板可以查看现金流预测");
+        }
+        return ResponseEntity.ok(cashFlowForecastService.getForecast());
+    }
+    
+    /**
+     * 获取已结账期间
+     */
+    @GetMapping("/periods")
+    public ResponseEntity<List<String>> getClosedPeriods() {
+        log.debug("获取已结账期间");
+        return ResponseEntity.ok(periodCloseService.getClosedPeriods());
+    }
+    
+    /**
+     * 获取期末余额快照
+     */
+    @GetMapping("/periods/{period}")
+    public ResponseEntity<List<AccountPeriodBalance>> getPeriodBalances(@PathVariable String period) {
+        log.debug("获取期末余额快照: period={}", period);
+        return ResponseEntity.ok(periodCloseService.getPeriodBalances(PeriodCloseService.parsePeriod(period)));
+    }
+    
+    /**
+     * 期末结账
+     * 仅财务经理可以结账，重复结账会重新计算该期间快照
+     */
+    @PostMapping("/periods/{period}/close")
+    public ResponseEntity<List<AccountPeriodBalance>> closePeriod(@PathVariable String period) {
+        log.info("期末结账请求: period={}", period);
+        if (!SecurityUtil.isManager()) {
+            throw new ForbiddenException("只有财务经理可以结账");
+        }
+        return ResponseEntity.ok(periodCloseService.closePeriod(PeriodCloseService.parsePeriod(period)));
+    }
+}
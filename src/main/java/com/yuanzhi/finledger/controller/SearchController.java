@@ -0,0 +1,61 @@
+package com.yuanzhi.finledger.controller;
+
+import com.yuanzhi.finledger.dto.SearchResult;
+import com.yuanzhi.finledger.exception.ForbiddenException;
+import com.yuanzhi.finledger.service.SearchIndexService;
+import com.yuanzhi.finledger.util.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 搜索控制器
+ * 按关键词全文搜索交易和分录
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class SearchController {
+    
+    private final SearchIndexService searchIndexService;
+    
+    /**
+     * 搜索交易和分录
+     * q 为空格分隔的关键词，type 为 transaction 或 entry（不传则都搜索）；page 从 0 开始
+     */
+    @GetMapping
+    public ResponseEntity<SearchResult> search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        log.debug("搜索: q={}, type={}, page={}", q, type, page);
+        return ResponseEntity.ok(searchIndexService.search(q, type, minAmount, maxAmount, startDate, endDate,
+                page, size));
+    }
+    
+    /**
+     * 从数据库重建搜索索引
+     * 仅财务经理可以操作，在后台执行；定时同步未能补录的变更（如长事务写入的记录）可通过重建同步
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        log.info("重建搜索索引请求");
+        if (!SecurityUtil.isManager()) {
+            throw new ForbiddenException("只有财务经理可以重建搜索索引");
+        }
+        searchIndexService.rebuild();
+        return ResponseEntity.ok().build();
+    }
+}
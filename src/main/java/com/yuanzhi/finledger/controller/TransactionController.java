@@ -1,15 +1,21 @@
 package com.yuanzhi.finledger.controller;
 
+import com.yuanzhi.finledger.dto.CursorPage;
+import com.yuanzhi.finledger.dto.ImportJob;
 import com.yuanzhi.finledger.entity.Transaction;
 import com.yuanzhi.finledger.exception.ForbiddenException;
+import com.yuanzhi.finledger.service.TransactionImportService;
 import com.yuanzhi.finledger.service.TransactionService;
 import com.yuanzhi.finledger.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -24,6 +30,7 @@ import java.util.List;
 public class TransactionController {
     
     private final TransactionService transactionService;
+    private final TransactionImportService transactionImportService;
     
     /**
      * 创建交易记录
@@ -38,6 +45,28 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.createTransaction(transaction));
     }
     
+    /**
+     * 导入银行流水 CSV
+     * 仅会计可以导入；后台异步执行，返回任务ID供轮询进度
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ImportJob> importTransactions(@RequestParam("file") MultipartFile file) {
+        log.info("交易导入请求: fileName={}, size={}", file.getOriginalFilename(), file.getSize());
+        if (!SecurityUtil.isAccountant()) {
+            throw new ForbiddenException("只有会计可以导入交易记录");
+        }
+        return ResponseEntity.ok(transactionImportService.submit(file, SecurityUtil.getCurrentUsername()));
+    }
+    
+    /**
+     * 查询导入任务进度及行错误
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String jobId) {
+        log.debug("查询交易导入进度: jobId={}", jobId);
+        return ResponseEntity.ok(transactionImportService.getJob(jobId));
+    }
+    
     /**
      * 获取所有交易记录
      */
@@ -47,6 +76,25 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getAllTransactions());
     }
     
+    /**
+     * 游标分页获取交易记录
+     * 首页不传 cursor，之后传上一页返回的 nextCursor；日期范围均包含端点当天
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Transaction>> getTransactionPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        log.debug("分页获取交易记录: status={}, userId={}, cursor={}", status, userId, cursor);
+        return ResponseEntity.ok(transactionService.getTransactionPage(status, userId,
+                startDate != null ? startDate.atStartOfDay() : null,
+                endDate != null ? endDate.plusDays(1).atStartOfDay() : null,
+                cursor, size));
+    }
+    
     /**
      * 获取待过账交易
      */
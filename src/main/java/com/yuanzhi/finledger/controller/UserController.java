@@ -1,5 +1,6 @@
 package com.yuanzhi.finledger.controller;
 
+import com.yuanzhi.finledger.dto.UserView;
 import com.yuanzhi.finledger.entity.User;
 import com.yuanzhi.finledger.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -35,7 +36,7 @@ public class UserController {
      * 根据ID获取用户
      */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Integer id) {
+    public ResponseEntity<UserView> getUserById(@PathVariable Integer id) {
         log.debug("查询用户: userId={}", id);
         return ResponseEntity.ok(userService.getUserById(id));
     }
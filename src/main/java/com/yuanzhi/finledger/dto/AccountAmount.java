@@ -0,0 +1,19 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 按科目汇总的借贷发生额
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountAmount {
+    private Integer accountId;
+    private BigDecimal debitAmount;
+    private BigDecimal creditAmount;
+}
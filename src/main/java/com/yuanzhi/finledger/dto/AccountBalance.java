@@ -0,0 +1,23 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 科目余额
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+    private Integer accountId;
+    private String code;
+    private String name;
+    private String category;
+    private BigDecimal debitAmount;  // 借方发生额合计
+    private BigDecimal creditAmount; // 贷方发生额合计
+    private BigDecimal balance;      // 按余额方向计算的余额
+}
@@ -0,0 +1,24 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 科目树节点
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountTreeNode {
+    private Integer id;
+    private String code;
+    private String name;
+    private String category;
+    private String currency;
+    private Integer parentId;
+    private List<AccountTreeNode> children = new ArrayList<>();
+}
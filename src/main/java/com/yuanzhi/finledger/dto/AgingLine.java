@@ -0,0 +1,26 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 账龄分析行
+ * 未结清金额 = 交易总金额 - 截至统计日已支付金额，按逾期天数（统计日 - 账期）分档
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgingLine {
+    private String supplierClient;
+    private BigDecimal current;        // 未到期（含无账期）
+    private BigDecimal days1To30;      // 逾期1-30天
+    private BigDecimal days31To60;     // 逾期31-60天
+    private BigDecimal days61To90;     // 逾期61-90天
+    private BigDecimal days91To120;    // 逾期91-120天
+    private BigDecimal over120;        // 逾期120天以上
+    private BigDecimal total;          // 未结清合计
+    private Long transactionCount;     // 未结清交易笔数
+}
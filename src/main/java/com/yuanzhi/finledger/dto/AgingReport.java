@@ -0,0 +1,20 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 账龄分析表
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgingReport {
+    private LocalDate asOfDate;
+    private List<AgingLine> lines;   // 按供应商/客户
+    private AgingLine total;         // 合计行（supplierClient 为 null）
+}
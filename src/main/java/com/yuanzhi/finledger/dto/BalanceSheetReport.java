@@ -0,0 +1,28 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 资产负债表
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSheetReport {
+    private LocalDate asOfDate;
+    private List<ReportLine> assets;
+    private List<ReportLine> liabilities;
+    private List<ReportLine> equity;
+    private BigDecimal totalAssets;
+    private BigDecimal totalLiabilities;
+    private BigDecimal totalEquity;
+    private BigDecimal undistributedProfit;       // 未结转损益（收入 - 费用）
+    private BigDecimal totalLiabilitiesAndEquity; // 负债 + 权益 + 未结转损益
+    private boolean balanced;
+}
@@ -0,0 +1,27 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量过账单条结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEntryResult {
+
+    private Integer index;   // 请求中的序号（从0开始）
+    private boolean success;
+    private Integer entryId; // 成功时返回的分录ID
+    private String message;
+
+    public static BulkEntryResult success(Integer index, Integer entryId) {
+        return new BulkEntryResult(index, true, entryId, "过账成功");
+    }
+
+    public static BulkEntryResult failure(Integer index, String message) {
+        return new BulkEntryResult(index, false, null, message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 批量状态变更请求
+ * 传 ids 时按ID列表处理；不传 ids 时按过滤条件选取可流转到目标状态的记录（按ID顺序，单次最多1000条）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequest {
+    
+    private List<Integer> ids;
+    private String status;        // 目标状态
+    private Integer userId;       // 录入用户（仅分录）
+    private LocalDate startDate;  // 日期范围，包含端点当天（分录按创建日期，支付按支付日期）
+    private LocalDate endDate;
+}
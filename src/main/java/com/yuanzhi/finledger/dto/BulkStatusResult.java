@@ -0,0 +1,27 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量状态变更单条结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResult {
+    
+    private Integer id;
+    private boolean success;
+    private String status;   // 处理后的当前状态，记录不存在时为 null
+    private String message;
+    
+    public static BulkStatusResult success(Integer id, String status) {
+        return new BulkStatusResult(id, true, status, "状态已变更");
+    }
+    
+    public static BulkStatusResult failure(Integer id, String status, String message) {
+        return new BulkStatusResult(id, false, status, message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 现金流预测日明细
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CashFlowDay {
+    private LocalDate date;
+    private BigDecimal inflow;     // 预计流入（应收交易到期）
+    private BigDecimal outflow;    // 预计流出（应付交易到期、已审批支付）
+    private BigDecimal net;        // 净流量
+    private BigDecimal balance;    // 当日预计期末现金余额
+}
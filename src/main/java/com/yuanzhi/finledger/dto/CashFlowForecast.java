@@ -0,0 +1,32 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 现金流预测
+ * 期初余额为库存现金（1001）、银行存款（1002）及其明细科目的当前余额，已逾期的款项计入首日；
+ * 交易方向取自已审核分录记入的应收（1122）、应付（2202）科目，尚无法判断方向的交易单独列出，不计入预测
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CashFlowForecast {
+    private LocalDate startDate;
+    private BigDecimal openingBalance;
+    private List<CashFlowDay> days;
+    private BigDecimal totalInflow;
+    private BigDecimal totalOutflow;
+    private BigDecimal closingBalance;
+    private BigDecimal unscheduledInflow;     // 无账期的应收，不计入逐日预测
+    private BigDecimal unscheduledOutflow;    // 无账期的应付，不计入逐日预测
+    private BigDecimal unclassifiedAmount;    // 未记入应收、应付科目的未结清交易金额，不计入预测
+    private long unclassifiedCount;           // 未分类交易笔数
+    private LocalDateTime computedAt;         // 预测计算时间
+}
@@ -0,0 +1,19 @@
+package com.yuanzhi.finledger.dto;
+
+import com.yuanzhi.finledger.entity.Entry;
+import com.yuanzhi.finledger.entity.Split;
+import jakarta.validation.Valid;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 创建分录请求DTO
+ */
+@Data
+public class CreateEntryRequest {
+    @Valid
+    private Entry entry;
+    @Valid
+    private List<Split> splits;
+}
@@ -0,0 +1,21 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 下一页请求时原样回传 nextCursor，hasMore 为 false 时表示已到末页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    private List<T> items;
+    private String nextCursor; // 下一页游标，末页为 null
+    private boolean hasMore;
+}
@@ -0,0 +1,35 @@
+package com.yuanzhi.finledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 首页概览
+ * 按角色返回不同内容，当前角色看不到的字段为 null 且不输出
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardSummary {
+    private String role;
+    private Long pendingTransactions;               // 待过账交易数
+    private Long submittedEntries;                  // 待审核分录数
+    private Long pendingPayments;                   // 待审批支付数
+    private Integer totalAccounts;                  // 科目总数
+    private List<RecentTransaction> recentTransactions;
+    private Long rejectedEntries;                   // 被拒绝待修改的分录数（会计）
+    private BigDecimal pendingTransactionAmount;    // 待过账交易金额（财务经理、老板）
+    private BigDecimal pendingPaymentAmount;        // 待审批支付金额（财务经理、老板）
+    private BigDecimal approvedPaymentAmount;       // 已审批待付款金额（财务经理、老板）
+    private List<PaymentView> pendingPaymentItems;  // 最近的待审批支付（财务经理、老板）
+    private BigDecimal cashBalance;                 // 当前现金余额（老板）
+    private BigDecimal forecastBalance30Days;       // 30天后预计现金余额（老板）
+    private LocalDateTime generatedAt;              // 生成时间，缓存命中时为缓存生成时间
+}
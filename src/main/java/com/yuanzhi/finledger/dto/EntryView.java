@@ -0,0 +1,29 @@
+package com.yuanzhi.finledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分录视图
+ * 不含延迟加载的关联对象；仅在请求 include=splits 时填充 splits
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntryView {
+    private Integer id;
+    private String summary;
+    private BigDecimal totalAmount;
+    private LocalDateTime createdDate;
+    private String status;
+    private Integer transactionID;
+    private Integer userID;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<SplitView> splits;
+}
@@ -0,0 +1,28 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 导入任务进度
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+    
+    private String jobId;
+    private String fileName;
+    private String status;        // 状态：RUNNING, COMPLETED, FAILED
+    private long processedRows;   // 已处理行数
+    private long importedRows;    // 成功导入行数
+    private long failedRows;      // 失败行数
+    private List<ImportRowError> errors; // 行错误明细（最多保留前1000条）
+    private String message;       // 任务失败原因
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,17 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 导入行错误
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowError {
+    
+    private long row;       // 文件中的数据行号（从1开始，不含表头）
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 利润表
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncomeStatementReport {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<ReportLine> revenues;
+    private List<ReportLine> expenses;
+    private BigDecimal totalRevenue;
+    private BigDecimal totalExpense;
+    private BigDecimal netProfit;
+}
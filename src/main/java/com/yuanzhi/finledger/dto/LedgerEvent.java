@@ -0,0 +1,22 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 推送事件
+ * type 为 实体.状态，如 entry.submitted、payment.approved、transaction.posted
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEvent {
+    private String type;
+    private String status;
+    private List<Integer> ids;          // 本次变更涉及的记录ID（批量操作合并为一个事件）
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,20 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 付款文件中的一笔转账：同一付款批次内按付款科目、收款方合并的支付
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentTransfer {
+    private Integer accountId;
+    private String counterparty;
+    private BigDecimal amount;
+    private Long paymentCount;
+}
@@ -0,0 +1,27 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 支付视图
+ * 不含延迟加载的关联对象，科目编码和名称取自科目树缓存
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentView {
+    private Integer id;
+    private Integer transactionID;
+    private Integer accountID;
+    private String accountCode;
+    private String accountName;
+    private BigDecimal amount;
+    private LocalDateTime paymentDate;
+    private String status;
+    private Integer approvedBy;
+}
@@ -0,0 +1,22 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 首页最近交易
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecentTransaction {
+    private Integer id;
+    private LocalDateTime date;
+    private String supplierClient;
+    private BigDecimal totalAmount;
+    private String status;
+}
@@ -0,0 +1,26 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 报表行
+ * 金额已包含全部下级科目的汇总
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportLine {
+    private Integer accountId;
+    private String code;
+    private String name;
+    private String category;
+    private Integer parentId;
+    private Integer level;           // 科目层级，根科目为0
+    private BigDecimal debitAmount;  // 借方金额
+    private BigDecimal creditAmount; // 贷方金额
+    private BigDecimal balance;      // 按余额方向计算的余额
+}
@@ -0,0 +1,20 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 搜索分面统计中的一档
+ * from、to 可直接作为搜索接口的范围参数（金额为 minAmount/maxAmount，日期为 startDate/endDate），
+ * 含义与接口参数一致：金额含下限不含上限，日期两端均含；为 null 表示该端不限
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchFacetCount {
+    private String label;
+    private String from;
+    private String to;
+    private long count;
+}
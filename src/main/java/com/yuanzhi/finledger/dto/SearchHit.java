@@ -0,0 +1,30 @@
+package com.yuanzhi.finledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 搜索命中的一条交易或分录
+ * 字段取自索引中保存的值，交易只有交易字段，分录只有摘要和关联交易ID
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchHit {
+    private String type;               // transaction / entry
+    private Integer id;
+    private LocalDateTime date;        // 交易日期 / 分录创建日期
+    private BigDecimal amount;         // 总金额
+    private String supplierClient;     // 供应商/客户（交易）
+    private String project;            // 项目（交易）
+    private String productService;     // 产品/服务（交易）
+    private String summary;            // 摘要（分录）
+    private Integer transactionId;     // 关联交易ID（分录）
+    private Float score;               // 相关度，无关键词时为 null
+}
@@ -0,0 +1,23 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 搜索结果
+ * 分面统计基于关键词和类型筛选后的全部命中，不受金额、日期筛选和分页影响，便于切换区间
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+    private long total;                           // 命中总数
+    private List<SearchHit> hits;                 // 当前页
+    private List<SearchFacetCount> amountFacets;  // 按金额区间统计
+    private List<SearchFacetCount> dateFacets;    // 按日期区间统计
+    private boolean indexReady;                   // 启动后索引重建完成前为 false，结果可能不完整
+    private long tookMs;
+}
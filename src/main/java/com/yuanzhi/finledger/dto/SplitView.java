@@ -0,0 +1,27 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 分录拆分视图
+ * 科目编码和名称取自科目树缓存
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SplitView {
+    private Integer id;
+    private Integer entryID;
+    private Integer accountID;
+    private String accountCode;
+    private String accountName;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal debitAmount;
+    private BigDecimal creditAmount;
+    private BigDecimal taxAmount;
+}
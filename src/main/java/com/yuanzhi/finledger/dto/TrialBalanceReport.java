@@ -0,0 +1,24 @@
+package com.yuanzhi.finledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 试算平衡表
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrialBalanceReport {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<ReportLine> lines;
+    private BigDecimal totalDebit;
+    private BigDecimal totalCredit;
+    private boolean balanced;
+}
@@ -0,0 +1,27 @@
+package com.yuanzhi.finledger.dto;
+
+import com.yuanzhi.finledger.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户视图
+ * 不含密码哈希，字段不可修改，可以放入本地缓存供多个请求共享
+ */
+@Getter
+@AllArgsConstructor
+public class UserView {
+    private final Integer id;
+    private final String username;
+    private final String role;
+    private final String email;
+    private final LocalDateTime createdDate;
+    private final String avatar;
+    
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getUsername(), user.getRole(), user.getEmail(),
+                user.getCreatedDate(), user.getAvatar());
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -30,10 +31,11 @@ public class Account {
     @Column(nullable = false, length = 20)
     private String category; // 科目类别：ASSET, LIABILITY, EQUITY, REVENUE, EXPENSE
     
-    @Column(name = "debit_amount", precision = 10, scale = 2)
+    // 借贷金额由分录审核时的增量更新语句维护，实体更新时不覆盖
+    @Column(name = "debit_amount", precision = 15, scale = 2, updatable = false)
     private BigDecimal debitAmount = BigDecimal.ZERO; // 借方金额
     
-    @Column(name = "credit_amount", precision = 10, scale = 2)
+    @Column(name = "credit_amount", precision = 15, scale = 2, updatable = false)
     private BigDecimal creditAmount = BigDecimal.ZERO; // 贷方金额
     
     @Column(length = 10)
@@ -42,6 +44,11 @@ public class Account {
     @Column(name = "parent_id")
     private Integer parentID; // 父科目ID
     
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id", insertable = false, updatable = false)
     private Account parent;
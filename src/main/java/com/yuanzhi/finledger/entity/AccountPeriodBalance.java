@@ -0,0 +1,59 @@
+package com.yuanzhi.finledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 科目期末余额快照实体类
+ * 会计期间（自然月）结账时写入，记录各科目截至期初、期末的累计借贷金额
+ */
+@Entity
+@Table(name = "account_period_balances",
+        uniqueConstraints = @UniqueConstraint(name = "uk_account_period", columnNames = {"account_id", "period"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPeriodBalance {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(name = "account_id", nullable = false)
+    private Integer accountID; // 关联科目ID
+    
+    @Column(nullable = false, length = 7)
+    private String period; // 会计期间，格式 yyyy-MM
+    
+    @Column(name = "period_start", nullable = false)
+    private LocalDateTime periodStart; // 期间开始时间（含）
+    
+    @Column(name = "period_end", nullable = false)
+    private LocalDateTime periodEnd; // 期间结束时间（不含）
+    
+    @Column(name = "opening_debit", precision = 15, scale = 2)
+    private BigDecimal openingDebit = BigDecimal.ZERO; // 期初累计借方
+    
+    @Column(name = "opening_credit", precision = 15, scale = 2)
+    private BigDecimal openingCredit = BigDecimal.ZERO; // 期初累计贷方
+    
+    @Column(name = "period_debit", precision = 15, scale = 2)
+    private BigDecimal periodDebit = BigDecimal.ZERO; // 本期借方发生额
+    
+    @Column(name = "period_credit", precision = 15, scale = 2)
+    private BigDecimal periodCredit = BigDecimal.ZERO; // 本期贷方发生额
+    
+    @Column(name = "closing_debit", precision = 15, scale = 2)
+    private BigDecimal closingDebit = BigDecimal.ZERO; // 期末累计借方
+    
+    @Column(name = "closing_credit", precision = 15, scale = 2)
+    private BigDecimal closingCredit = BigDecimal.ZERO; // 期末累计贷方
+    
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt; // 结账时间
+}
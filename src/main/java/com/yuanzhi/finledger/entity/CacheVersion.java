@@ -0,0 +1,25 @@
+package com.yuanzhi.finledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存版本实体类
+ * 每类缓存一行，数据变更时在同一事务中递增版本号，各节点定时比对版本号以失效本地缓存
+ */
+@Entity
+@Table(name = "cache_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheVersion {
+    
+    @Id
+    @Column(name = "cache_name", length = 50)
+    private String cacheName; // 缓存名称
+    
+    @Column(nullable = false)
+    private Long version = 0L; // 版本号
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -12,14 +13,18 @@ import java.time.LocalDateTime;
  * 分录实体类
  */
 @Entity
-@Table(name = "entries")
+// 搜索索引按更新时间增量同步
+@Table(name = "entries", indexes = @Index(name = "idx_entries_updated_at", columnList = "updated_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Entry {
     
+    // 使用号段表分配ID（每次预取50个），使 Hibernate 能够对 INSERT 进行 JDBC 批处理
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "entry_id_generator")
+    @TableGenerator(name = "entry_id_generator", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "entries", allocationSize = 50)
     private Integer id;
     
     @Column(nullable = false, length = 255)
@@ -40,6 +45,16 @@ public class Entry {
     @Column(name = "user_id", nullable = false)
     private Integer userID; // 录入用户ID
     
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+    
+    // 由数据库在插入和更新时维护，搜索索引据此同步其他节点的变更
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP")
+    private LocalDateTime updatedAt; // 更新时间
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "transaction_id", insertable = false, updatable = false)
     private Transaction transaction;
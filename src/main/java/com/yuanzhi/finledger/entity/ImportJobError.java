@@ -0,0 +1,32 @@
+package com.yuanzhi.finledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 导入任务行错误实体类
+ */
+@Entity
+@Table(name = "import_job_errors", indexes = {
+    @Index(name = "idx_import_job_errors_job_id", columnList = "job_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobError {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "job_id", length = 36, nullable = false)
+    private String jobId; // 导入任务ID
+    
+    @Column(name = "row_no", nullable = false)
+    private Long rowNo; // 文件中的数据行号（从1开始，不含表头）
+    
+    @Column(length = 255)
+    private String message; // 错误原因
+}
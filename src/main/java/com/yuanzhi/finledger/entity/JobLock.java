@@ -0,0 +1,22 @@
+package com.yuanzhi.finledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 任务锁实体类
+ * 每类需要在多个节点间串行执行的操作一行，操作在事务中先锁定对应行，其他节点的同类操作等待其提交
+ */
+@Entity
+@Table(name = "job_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+    
+    @Id
+    @Column(name = "lock_name", length = 50)
+    private String lockName; // 锁名称
+}
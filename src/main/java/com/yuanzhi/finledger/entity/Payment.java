@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -40,6 +41,14 @@ public class Payment {
     @Column(name = "approved_by")
     private Integer approvedBy; // 审批人ID
     
+    @Column(name = "payment_run_id")
+    private Integer paymentRunID; // 付款批次ID（经付款批次支付时记录）
+    
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "transaction_id", insertable = false, updatable = false)
     private Transaction transaction;
@@ -0,0 +1,68 @@
+package com.yuanzhi.finledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 付款批次实体类
+ * 一次付款批次将截止日期前的已审批支付分批标记为已支付，并记录处理进度（检查点），中断后可从检查点继续；
+ * 执行中的批次由认领它的节点处理，该节点停止推进超过认领超时后由其他节点接手
+ */
+@Entity
+@Table(name = "payment_runs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRun {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(name = "cutoff_date", nullable = false)
+    private LocalDate cutoffDate; // 截止日期（含），支付日期不晚于该日的已审批支付纳入本批次
+    
+    @Column(length = 20)
+    private String status; // 状态：RUNNING, COMPLETED, FAILED
+    
+    @Column(name = "last_payment_id", nullable = false)
+    private Integer lastPaymentId = 0; // 检查点：已处理的最大支付ID
+    
+    @Column(name = "payment_count", nullable = false)
+    private Integer paymentCount = 0; // 已支付笔数
+    
+    @Column(name = "transfer_count", nullable = false)
+    private Integer transferCount = 0; // 付款文件中的转账笔数（按科目、收款方合并）
+    
+    @Column(name = "total_amount", precision = 15, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO; // 付款总额
+    
+    @Column(name = "created_by")
+    private Integer createdBy; // 发起人ID
+    
+    @Column(name = "created_date")
+    private LocalDateTime createdDate; // 发起时间，同时作为支付日期和付款文件的创建时间
+    
+    @Column(name = "finished_date")
+    private LocalDateTime finishedDate; // 完成时间
+    
+    @Column(length = 255)
+    private String message; // 失败原因
+    
+    @Column(length = 64)
+    private String owner; // 执行节点标识，执行中的批次只由该节点处理
+    
+    private LocalDateTime heartbeat; // 执行节点最近一次推进进度的时间，超时未更新时其他节点可接手
+    
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+}
@@ -0,0 +1,30 @@
+package com.yuanzhi.finledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待重新结账请求实体类
+ * 已结账期间内的分录发生变动时随业务事务一起写入，提交后由后台任务在结账任务锁下重算并删除
+ */
+@Entity
+@Table(name = "period_close_requests")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodCloseRequest {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(length = 7, nullable = false)
+    private String period; // 发生变动的最早会计期间（yyyy-MM），该期间及之后的已结账期间需要重算
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt; // 请求时间
+}
@@ -0,0 +1,51 @@
+package com.yuanzhi.finledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 交易导入任务实体类
+ * 任务进度保存在数据库中，任一节点都可以查询；任务由提交它的节点执行，该节点停止后任务不会被其他节点接手
+ */
+@Entity
+@Table(name = "import_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionImportJob {
+    
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String jobId; // 任务ID
+    
+    @Column(name = "file_name", length = 255)
+    private String fileName; // 导入文件名
+    
+    @Column(length = 20)
+    private String status; // 状态：RUNNING, COMPLETED, FAILED
+    
+    @Column(name = "processed_rows", nullable = false)
+    private Long processedRows = 0L; // 已处理行数
+    
+    @Column(name = "imported_rows", nullable = false)
+    private Long importedRows = 0L; // 成功导入行数
+    
+    @Column(name = "failed_rows", nullable = false)
+    private Long failedRows = 0L; // 失败行数
+    
+    @Column(length = 255)
+    private String message; // 失败原因
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt; // 提交时间
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; // 最近一次写入进度的时间，执行中的任务长时间未更新视为已中断
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt; // 结束时间
+}
@@ -2,6 +2,8 @@ package com.yuanzhi.finledger.exception;
 
 import com.yuanzhi.finledger.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -43,6 +45,29 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(403, e.getMessage()));
     }
     
+    /**
+     * 处理请求过多异常
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<Object>> handleTooManyRequestsException(TooManyRequestsException e) {
+        log.warn("请求过多: {}", e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(429, e.getMessage()));
+    }
+    
+    /**
+     * 处理乐观锁冲突（记录已被他人修改）
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Object>> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        log.warn("并发修改冲突: {}", e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(409, "数据已被其他用户修改，请刷新后重试"));
+    }
+    
     /**
      * 处理参数验证异常
      */
@@ -0,0 +1,12 @@
+package com.yuanzhi.finledger.exception;
+
+/**
+ * 请求过多异常
+ * 服务端过载、拒绝受理请求时抛出，客户端应稍后重试
+ */
+public class TooManyRequestsException extends RuntimeException {
+    
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.yuanzhi.finledger.repository;
+
+import com.yuanzhi.finledger.entity.AccountPeriodBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AccountPeriodBalanceRepository extends JpaRepository<AccountPeriodBalance, Integer> {
+    List<AccountPeriodBalance> findByPeriod(String period);
+    boolean existsByPeriod(String period);
+    
+    /**
+     * 截至指定时间已结账的最近一个期间
+     */
+    @Query("SELECT MAX(b.period) FROM AccountPeriodBalance b WHERE b.periodEnd <= :time")
+    String findLatestClosedPeriodBefore(@Param("time") LocalDateTime time);
+    
+    @Query("SELECT DISTINCT b.period FROM AccountPeriodBalance b WHERE b.period >= :period ORDER BY b.period")
+    List<String> findClosedPeriodsFrom(@Param("period") String period);
+    
+    @Query("SELECT DISTINCT b.period FROM AccountPeriodBalance b ORDER BY b.period")
+    List<String> findClosedPeriods();
+    
+    @Modifying
+    @Query("DELETE FROM AccountPeriodBalance b WHERE b.period = :period")
+    int deleteByPeriod(@Param("period") String period);
+}
@@ -1,9 +1,15 @@
 package com.yuanzhi.finledger.repository;
 
 import com.yuanzhi.finledger.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,8 +17,35 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Integer> {
     Optional<Account> findByCode(String code);
     boolean existsByCode(String code);
+    boolean existsByParentID(Integer parentID);
     List<Account> findByCategory(String category);
     List<Account> findByParentID(Integer parentID);
     List<Account> findByParentIDIsNull(); // 根科目
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Integer id);
+    
+    /**
+     * 按ID顺序锁定分录涉及的科目，保证并发审核时加锁顺序一致
+     */
+    @Query(value = "SELECT id FROM accounts WHERE id IN " +
+            "(SELECT account_id FROM splits WHERE entry_id IN (:entryIds)) ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Integer> lockAccountsOfEntries(@Param("entryIds") Collection<Integer> entryIds);
+    
+    /**
+     * 将分录拆分的借贷金额按科目汇总后累加到科目余额
+     * sign 为 1 时记入，为 -1 时冲回
+     */
+    @Modifying
+    @Query(value = "UPDATE accounts SET " +
+            "debit_amount = COALESCE(debit_amount, 0) + :sign * (SELECT COALESCE(SUM(s.debit_amount), 0) " +
+            "FROM splits s WHERE s.entry_id IN (:entryIds) AND s.account_id = accounts.id), " +
+            "credit_amount = COALESCE(credit_amount, 0) + :sign * (SELECT COALESCE(SUM(s.credit_amount), 0) " +
+            "FROM splits s WHERE s.entry_id IN (:entryIds) AND s.account_id = accounts.id) " +
+            "WHERE id IN (SELECT account_id FROM splits WHERE entry_id IN (:entryIds))",
+            nativeQuery = true)
+    int applySplitAmounts(@Param("entryIds") Collection<Integer> entryIds, @Param("sign") int sign);
 }
 
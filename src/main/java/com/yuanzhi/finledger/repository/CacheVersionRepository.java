@@ -0,0 +1,21 @@
+package com.yuanzhi.finledger.repository;
+
+import com.yuanzhi.finledger.entity.CacheVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CacheVersionRepository extends JpaRepository<CacheVersion, String> {
+    
+    /**
+     * 递增缓存版本号（在调用方事务中执行，随数据变更一起提交）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CacheVersion v SET v.version = v.version + 1 WHERE v.cacheName = :cacheName")
+    int increment(@Param("cacheName") String cacheName);
+}
@@ -1,20 +1,67 @@
 package com.yuanzhi.finledger.repository;
 
 import com.yuanzhi.finledger.entity.Entry;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface EntryRepository extends JpaRepository<Entry, Integer> {
+public interface EntryRepository extends JpaRepository<Entry, Integer>, JpaSpecificationExecutor<Entry> {
     List<Entry> findByTransactionID(Integer transactionID);
     List<Entry> findByUserID(Integer userID);
     List<Entry> findByStatus(String status);
+    long countByStatus(String status);
     
     @Query("SELECT e FROM Entry e WHERE e.status = 'SUBMITTED' ORDER BY e.createdDate ASC")
     List<Entry> findSubmittedEntries();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Entry e WHERE e.id = :id")
+    Optional<Entry> findByIdForUpdate(@Param("id") Integer id);
+    
+    /**
+     * 按ID顺序锁定交易下的全部分录，删除交易前冲回已审核分录
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Entry e WHERE e.transactionID = :transactionId ORDER BY e.id")
+    List<Entry> findByTransactionIDForUpdate(@Param("transactionId") Integer transactionId);
+    
+    /**
+     * 条件更新分录状态：仅当当前状态属于 fromStatuses 时更新并递增版本号，返回受影响行数（0 表示未生效）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entry e SET e.status = :toStatus, e.version = e.version + 1 " +
+            "WHERE e.id = :id AND e.status IN :fromStatuses")
+    int transitionStatus(@Param("id") Integer id, @Param("fromStatuses") Collection<String> fromStatuses,
+                         @Param("toStatus") String toStatus);
+    
+    /**
+     * 按ID顺序锁定当前状态属于 fromStatuses 的分录，批量流转前确定实际生效的分录
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Entry e WHERE e.id IN :ids AND e.status IN :fromStatuses ORDER BY e.id")
+    List<Entry> findByIdInAndStatusInForUpdate(@Param("ids") Collection<Integer> ids,
+                                               @Param("fromStatuses") Collection<String> fromStatuses);
+    
+    /**
+     * 批量条件更新分录状态，返回受影响行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entry e SET e.status = :toStatus, e.version = e.version + 1 " +
+            "WHERE e.id IN :ids AND e.status IN :fromStatuses")
+    int transitionStatuses(@Param("ids") Collection<Integer> ids, @Param("fromStatuses") Collection<String> fromStatuses,
+                           @Param("toStatus") String toStatus);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Entry e WHERE e.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
 }
-
-
@@ -0,0 +1,24 @@
+package com.yuanzhi.finledger.repository;
+
+import com.yuanzhi.finledger.entity.ImportJobError;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ImportJobErrorRepository extends JpaRepository<ImportJobError, Long> {
+    List<ImportJobError> findByJobIdOrderByRowNo(String jobId);
+    
+    /**
+     * 删除过期任务的行错误，需在删除任务之前执行
+     */
+    @Modifying
+    @Query("DELETE FROM ImportJobError e WHERE e.jobId IN (SELECT j.jobId FROM TransactionImportJob j " +
+            "WHERE j.finishedAt < :expiry OR (j.finishedAt IS NULL AND j.updatedAt < :expiry))")
+    int deleteOfExpiredJobs(@Param("expiry") LocalDateTime expiry);
+}
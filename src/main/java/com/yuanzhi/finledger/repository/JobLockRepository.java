@@ -0,0 +1,19 @@
+package com.yuanzhi.finledger.repository;
+
+import com.yuanzhi.finledger.entity.JobLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM JobLock l WHERE l.lockName = :lockName")
+    Optional<JobLock> findByLockNameForUpdate(@Param("lockName") String lockName);
+}
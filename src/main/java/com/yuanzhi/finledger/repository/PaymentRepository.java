@@ -1,19 +1,108 @@
 package com.yuanzhi.finledger.repository;
 
 import com.yuanzhi.finledger.entity.Payment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, Integer> {
+public interface PaymentRepository extends JpaRepository<Payment, Integer>, JpaSpecificationExecutor<Payment> {
     List<Payment> findByTransactionID(Integer transactionID);
     List<Payment> findByStatus(String status);
+    List<Payment> findByStatusOrderByIdDesc(String status, Limit limit);
+    long countByStatus(String status);
     
     @Query("SELECT p FROM Payment p WHERE p.status = 'PENDING' ORDER BY p.paymentDate ASC")
     List<Payment> findPendingPayments();
+    
+    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.status = :status")
+    BigDecimal sumAmountByStatus(@Param("status") String status);
+    
+    /**
+     * 条件更新审批结果：仅当当前状态属于 fromStatuses 时更新状态和审批人并递增版本号，返回受影响行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :toStatus, p.approvedBy = :approverId, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.status IN :fromStatuses")
+    int transitionReview(@Param("id") Integer id, @Param("fromStatuses") Collection<String> fromStatuses,
+                         @Param("toStatus") String toStatus, @Param("approverId") Integer approverId);
+    
+    /**
+     * 条件更新支付完成：仅当当前状态属于 fromStatuses 时更新状态和支付日期并递增版本号，返回受影响行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :toStatus, p.paymentDate = :paymentDate, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.status IN :fromStatuses")
+    int transitionPaid(@Param("id") Integer id, @Param("fromStatuses") Collection<String> fromStatuses,
+                       @Param("toStatus") String toStatus, @Param("paymentDate") LocalDateTime paymentDate);
+    
+    /**
+     * 按ID顺序锁定当前状态属于 fromStatuses 的支付，批量审批前确定实际生效的支付
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id IN :ids AND p.status IN :fromStatuses ORDER BY p.id")
+    List<Payment> findByIdInAndStatusInForUpdate(@Param("ids") Collection<Integer> ids,
+                                                 @Param("fromStatuses") Collection<String> fromStatuses);
+    
+    /**
+     * 批量条件更新审批结果，返回受影响行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :toStatus, p.approvedBy = :approverId, p.version = p.version + 1 " +
+            "WHERE p.id IN :ids AND p.status IN :fromStatuses")
+    int transitionReviews(@Param("ids") Collection<Integer> ids, @Param("fromStatuses") Collection<String> fromStatuses,
+                          @Param("toStatus") String toStatus, @Param("approverId") Integer approverId);
+    
+    /**
+     * 付款批次选取：截止时间前的已审批支付，从检查点之后按ID顺序取一批
+     */
+    @Query("SELECT p.id FROM Payment p WHERE p.status = :status AND p.paymentDate < :cutoff AND p.id > :afterId " +
+            "ORDER BY p.id")
+    List<Integer> findIdsForRun(@Param("status") String status, @Param("cutoff") LocalDateTime cutoff,
+                                @Param("afterId") Integer afterId, Pageable pageable);
+    
+    /**
+     * 批量条件更新为已支付并记录付款批次，返回受影响行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :toStatus, p.paymentDate = :paymentDate, p.paymentRunID = :runId, " +
+            "p.version = p.version + 1 WHERE p.id IN :ids AND p.status IN :fromStatuses")
+    int transitionPaidInRun(@Param("ids") Collection<Integer> ids, @Param("fromStatuses") Collection<String> fromStatuses,
+                            @Param("toStatus") String toStatus, @Param("paymentDate") LocalDateTime paymentDate,
+                            @Param("runId") Integer runId);
+    
+    /**
+     * 指定支付中已归属该付款批次的ID
+     */
+    @Query("SELECT p.id FROM Payment p WHERE p.id IN :ids AND p.paymentRunID = :runId ORDER BY p.id")
+    List<Integer> findIdsInRun(@Param("ids") Collection<Integer> ids, @Param("runId") Integer runId);
+    
+    /**
+     * 付款批次汇总：[支付笔数, 付款总额, 转账笔数（按科目、收款方合并）]
+     */
+    @Query(value = "SELECT COUNT(*), COALESCE(SUM(p.amount), 0), " +
+            "(SELECT COUNT(*) FROM (SELECT 1 FROM payments g LEFT JOIN transactions t ON t.id = g.transaction_id " +
+            "WHERE g.payment_run_id = :runId GROUP BY g.account_id, t.supplier_client) transfers) " +
+            "FROM payments p WHERE p.payment_run_id = :runId", nativeQuery = true)
+    List<Object[]> summarizeRun(@Param("runId") Integer runId);
+    
+    /**
+     * 现金流预测：已审批未支付的支付按支付日期汇总到 horizon 之前，返回 [支付日期（可为 null）, 金额]
+     */
+    @Query(value = "SELECT CAST(p.payment_date AS DATE), SUM(p.amount) FROM payments p " +
+            "WHERE p.status = 'APPROVED' AND (p.payment_date IS NULL OR p.payment_date < :horizon) " +
+            "GROUP BY CAST(p.payment_date AS DATE)", nativeQuery = true)
+    List<Object[]> sumApprovedAmountsByDay(@Param("horizon") LocalDateTime horizon);
 }
-
-
@@ -0,0 +1,23 @@
+package com.yuanzhi.finledger.repository;
+
+import com.yuanzhi.finledger.entity.PaymentRun;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentRunRepository extends JpaRepository<PaymentRun, Integer> {
+    List<PaymentRun> findByStatus(String status);
+    boolean existsByStatus(String status);
+    List<PaymentRun> findAllByOrderByIdDesc();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM PaymentRun r WHERE r.id = :id")
+    Optional<PaymentRun> findByIdForUpdate(@Param("id") Integer id);
+}
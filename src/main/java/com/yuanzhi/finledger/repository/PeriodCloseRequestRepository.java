@@ -0,0 +1,12 @@
+package com.yuanzhi.finledger.repository;
+
+import com.yuanzhi.finledger.entity.PeriodCloseRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PeriodCloseRequestRepository extends JpaRepository<PeriodCloseRequest, Long> {
+    List<PeriodCloseRequest> findAllByOrderById();
+}
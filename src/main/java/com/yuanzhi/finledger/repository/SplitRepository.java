@@ -1,15 +1,44 @@
 package com.yuanzhi.finledger.repository;
 
+import com.yuanzhi.finledger.dto.AccountAmount;
 import com.yuanzhi.finledger.entity.Split;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SplitRepository extends JpaRepository<Split, Integer> {
     List<Split> findByEntryID(Integer entryID);
+    List<Split> findByEntryIDIn(Collection<Integer> entryIDs);
     List<Split> findByAccountID(Integer accountID);
+    boolean existsByAccountID(Integer accountID);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Split s WHERE s.entryID IN :entryIds")
+    int deleteByEntryIDs(@Param("entryIds") Collection<Integer> entryIds);
+    
+    /**
+     * 按科目汇总指定期间内已审核分录的借贷发生额 [startDate, endDate)
+     */
+    @Query("SELECT new com.yuanzhi.finledger.dto.AccountAmount(s.accountID, SUM(s.debitAmount), SUM(s.creditAmount)) " +
+            "FROM Split s JOIN s.entry e WHERE e.status = 'APPROVED' " +
+            "AND e.createdDate >= :startDate AND e.createdDate < :endDate GROUP BY s.accountID")
+    List<AccountAmount> sumApprovedAmountsBetween(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * 按科目汇总截至指定时间（不含）已审核分录的借贷发生额
+     */
+    @Query("SELECT new com.yuanzhi.finledger.dto.AccountAmount(s.accountID, SUM(s.debitAmount), SUM(s.creditAmount)) " +
+            "FROM Split s JOIN s.entry e WHERE e.status = 'APPROVED' " +
+            "AND e.createdDate < :endDate GROUP BY s.accountID")
+    List<AccountAmount> sumApprovedAmountsBefore(@Param("endDate") LocalDateTime endDate);
 }
 
 
@@ -0,0 +1,22 @@
+package com.yuanzhi.finledger.repository;
+
+import com.yuanzhi.finledger.entity.TransactionImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TransactionImportJobRepository extends JpaRepository<TransactionImportJob, String> {
+    
+    /**
+     * 删除指定时间之前结束（或最后一次写入进度）的任务
+     */
+    @Modifying
+    @Query("DELETE FROM TransactionImportJob j WHERE j.finishedAt < :expiry " +
+            "OR (j.finishedAt IS NULL AND j.updatedAt < :expiry)")
+    int deleteExpired(@Param("expiry") LocalDateTime expiry);
+}
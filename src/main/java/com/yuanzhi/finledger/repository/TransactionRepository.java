@@ -1,21 +1,92 @@
 package com.yuanzhi.finledger.repository;
 
+import com.yuanzhi.finledger.dto.RecentTransaction;
 import com.yuanzhi.finledger.entity.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
+public interface TransactionRepository extends JpaRepository<Transaction, Integer>, JpaSpecificationExecutor<Transaction> {
     List<Transaction> findByStatus(String status);
+    long countByStatus(String status);
     List<Transaction> findByUserID(Integer userID);
     List<Transaction> findByDateBetween(LocalDateTime startDate, LocalDateTime endDate);
     
     @Query("SELECT t FROM Transaction t WHERE t.status = 'PENDING' ORDER BY t.date ASC")
     List<Transaction> findPendingTransactions();
+    
+    @Query("SELECT DISTINCT t.project FROM Transaction t WHERE t.project IS NOT NULL")
+    List<String> findDistinctProjects();
+    
+    @Query("SELECT COALESCE(SUM(t.totalAmount), 0) FROM Transaction t WHERE t.status = :status")
+    BigDecimal sumTotalAmountByStatus(@Param("status") String status);
+    
+    /**
+     * 最近交易（按交易日期倒序），只取首页展示需要的列
+     */
+    @Query("SELECT new com.yuanzhi.finledger.dto.RecentTransaction(t.id, t.date, t.supplierClient, t.totalAmount, t.status) " +
+            "FROM Transaction t ORDER BY t.date DESC, t.id DESC")
+    List<RecentTransaction> findRecent(Limit limit);
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.version = t.version + 1 WHERE t.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Integer> ids, @Param("status") String status);
+    
+    /**
+     * 账龄汇总：按供应商/客户统计截至统计日未结清交易的未结清金额
+     * 统计日前已支付的金额按交易用相关子查询扣减，扣减后大于0的计入；交易的 status 是当前状态，
+     * 只在统计当前账龄时用来提前排除已结清交易（historical 为 false），统计历史时点时不按当前状态过滤。
+     * 返回 [供应商/客户, 未到期, 1-30, 31-60, 61-90, 91-120, 120+, 合计, 笔数]，
+     * 分档边界由调用方计算：current 为统计日零点，overdueN 为统计日前第 N 天零点
+     */
+    @Query(value = "SELECT o.supplier_client, " +
+            "SUM(CASE WHEN o.due_date IS NULL OR o.due_date >= :current THEN o.open_amount ELSE 0 END), " +
+            "SUM(CASE WHEN o.due_date < :current AND o.due_date >= :overdue30 THEN o.open_amount ELSE 0 END), " +
+            "SUM(CASE WHEN o.due_date < :overdue30 AND o.due_date >= :overdue60 THEN o.open_amount ELSE 0 END), " +
+            "SUM(CASE WHEN o.due_date < :overdue60 AND o.due_date >= :overdue90 THEN o.open_amount ELSE 0 END), " +
+            "SUM(CASE WHEN o.due_date < :overdue90 AND o.due_date >= :overdue120 THEN o.open_amount ELSE 0 END), " +
+            "SUM(CASE WHEN o.due_date < :overdue120 THEN o.open_amount ELSE 0 END), " +
+            "SUM(o.open_amount), COUNT(*) " +
+            "FROM (SELECT t.supplier_client, t.due_date, t.total_amount - COALESCE((SELECT SUM(p.amount) " +
+            "FROM payments p WHERE p.transaction_id = t.id AND p.status = 'PAID' AND p.payment_date < :asOfEnd), 0) " +
+            "AS open_amount FROM transactions t WHERE (:historical = TRUE OR t.status <> 'PAID') AND t.date < :asOfEnd) o " +
+            "WHERE o.open_amount > 0 GROUP BY o.supplier_client ORDER BY o.supplier_client",
+            nativeQuery = true)
+    List<Object[]> sumOpenAmountsByAge(@Param("asOfEnd") LocalDateTime asOfEnd,
+                                       @Param("historical") boolean historical,
+                                       @Param("current") LocalDateTime current,
+                                       @Param("overdue30") LocalDateTime overdue30,
+                                       @Param("overdue60") LocalDateTime overdue60,
+                                       @Param("overdue90") LocalDateTime overdue90,
+                                       @Param("overdue120") LocalDateTime overdue120);
+    
+    /**
+     * 现金流预测：未结清（非 PAID）交易按账期日汇总到 horizon 之前的未结清金额
+     * 方向取自交易下已审核分录的拆分：贷记应付科目为应付（1），借记应收科目为应收（0），都没有的为未分类（2）；
+     * 未结清金额扣除已审批和已支付金额（已审批支付由支付日期另行计入），返回 [账期日（可为 null）, 方向, 金额, 笔数]
+     */
+    @Query(value = "SELECT CAST(o.due_date AS DATE), o.direction, SUM(o.open_amount), COUNT(*) " +
+            "FROM (SELECT t.due_date, CASE " +
+            "WHEN EXISTS (SELECT 1 FROM entries e JOIN splits s ON s.entry_id = e.id WHERE e.transaction_id = t.id " +
+            "AND e.status = 'APPROVED' AND s.account_id IN (:payableAccountIds) AND s.credit_amount > 0) THEN 1 " +
+            "WHEN EXISTS (SELECT 1 FROM entries e JOIN splits s ON s.entry_id = e.id WHERE e.transaction_id = t.id " +
+            "AND e.status = 'APPROVED' AND s.account_id IN (:receivableAccountIds) AND s.debit_amount > 0) THEN 0 " +
+            "ELSE 2 END AS direction, " +
+            "t.total_amount - COALESCE((SELECT SUM(p.amount) FROM payments p WHERE p.transaction_id = t.id " +
+            "AND p.status IN ('APPROVED', 'PAID')), 0) AS open_amount " +
+            "FROM transactions t WHERE t.status <> 'PAID' AND (t.due_date IS NULL OR t.due_date < :horizon)) o " +
+            "WHERE o.open_amount > 0 GROUP BY CAST(o.due_date AS DATE), o.direction", nativeQuery = true)
+    List<Object[]> sumOpenAmountsByDueDay(@Param("horizon") LocalDateTime horizon,
+                                          @Param("payableAccountIds") Collection<Integer> payableAccountIds,
+                                          @Param("receivableAccountIds") Collection<Integer> receivableAccountIds);
 }
-
-
@@ -1,14 +1,21 @@
 package com.yuanzhi.finledger.service;
 
+import com.yuanzhi.finledger.dto.AccountBalance;
+import com.yuanzhi.finledger.dto.AccountTreeNode;
 import com.yuanzhi.finledger.entity.Account;
 import com.yuanzhi.finledger.exception.BusinessException;
 import com.yuanzhi.finledger.repository.AccountRepository;
+import com.yuanzhi.finledger.repository.SplitRepository;
+import com.yuanzhi.finledger.util.AccountCategory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 账户服务类
@@ -20,6 +27,9 @@ import java.util.List;
 public class AccountService {
     
     private final AccountRepository accountRepository;
+    private final SplitRepository splitRepository;
+    private final AccountTreeCache accountTreeCache;
+    private final CacheVersionService cacheVersionService;
     
     /**
      * 创建账户科目
@@ -28,12 +38,22 @@ public class AccountService {
     public Account createAccount(Account account) {
         log.info("创建账户科目: code={}, name={}", account.getCode(), account.getName());
         
+        // 完整性校验以数据库为准，本地科目树缓存可能尚未同步其他节点的变更
         if (accountRepository.existsByCode(account.getCode())) {
             log.warn("创建账户失败: 科目编码已存在 - {}", account.getCode());
             throw new BusinessException("科目编码已存在");
         }
         
-        Account savedAccount = accountRepository.save(account);
+        Account savedAccount;
+        try {
+            savedAccount = accountRepository.saveAndFlush(account);
+        } catch (DataIntegrityViolationException e) {
+            // 并发创建相同编码时由唯一约束拒绝
+            log.warn("创建账户失败: 科目编码已存在 - {}", account.getCode());
+            throw new BusinessException("科目编码已存在");
+        }
+        accountTreeCache.onAccountSaved(savedAccount);
+        cacheVersionService.markChanged(CacheVersionService.ACCOUNTS, null);
         log.info("账户科目创建成功: accountId={}, code={}", savedAccount.getId(), savedAccount.getCode());
         return savedAccount;
     }
@@ -41,6 +61,7 @@ public class AccountService {
     /**
      * 根据ID获取账户
      */
+    @Transactional(readOnly = true)
     public Account getAccountById(Integer id) {
         log.debug("查询账户: accountId={}", id);
         return accountRepository.findById(id)
@@ -50,9 +71,23 @@ public class AccountService {
                 });
     }
     
+    /**
+     * 获取科目余额
+     * 余额随分录审核增量维护，直接读取科目行即可
+     */
+    @Transactional(readOnly = true)
+    public AccountBalance getAccountBalance(Integer id) {
+        log.debug("查询科目余额: accountId={}", id);
+        Account account = getAccountById(id);
+        return new AccountBalance(account.getId(), account.getCode(), account.getName(), account.getCategory(),
+                account.getDebitAmount(), account.getCreditAmount(),
+                AccountCategory.balanceOf(account.getCategory(), account.getDebitAmount(), account.getCreditAmount()));
+    }
+    
     /**
      * 获取所有账户
      */
+    @Transactional(readOnly = true)
     public List<Account> getAllAccounts() {
         log.debug("查询所有账户");
         return accountRepository.findAll();
@@ -61,6 +96,7 @@ public class AccountService {
     /**
      * 根据类别获取账户
      */
+    @Transactional(readOnly = true)
     public List<Account> getAccountsByCategory(String category) {
         log.debug("根据类别查询账户: category={}", category);
         return accountRepository.findByCategory(category);
@@ -69,6 +105,7 @@ public class AccountService {
     /**
      * 获取根账户
      */
+    @Transactional(readOnly = true)
     public List<Account> getRootAccounts() {
         log.debug("查询根账户");
         return accountRepository.findByParentIDIsNull();
@@ -77,11 +114,21 @@ public class AccountService {
     /**
      * 获取子账户
      */
+    @Transactional(readOnly = true)
     public List<Account> getChildAccounts(Integer parentId) {
         log.debug("查询子账户: parentId={}", parentId);
         return accountRepository.findByParentID(parentId);
     }
     
+    /**
+     * 获取科目树及其版本
+     * 从内存缓存读取，一次返回完整的嵌套层级
+     */
+    public Map.Entry<Long, List<AccountTreeNode>> getAccountTree() {
+        log.debug("查询科目树");
+        return accountTreeCache.getVersionedTree();
+    }
+    
     /**
      * 更新账户信息
      */
@@ -89,6 +136,10 @@ public class AccountService {
     public Account updateAccount(Integer id, Account accountDetails) {
         log.info("更新账户信息: accountId={}", id);
         Account account = getAccountById(id);
+        // 客户端带回读取时的版本号时先比对，避免覆盖他人在此期间的修改
+        if (accountDetails.getVersion() != null && !accountDetails.getVersion().equals(account.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Account.class, id);
+        }
         if (accountDetails.getName() != null) {
             account.setName(accountDetails.getName());
         }
@@ -102,6 +153,8 @@ public class AccountService {
             account.setParentID(accountDetails.getParentID());
         }
         Account updatedAccount = accountRepository.save(account);
+        accountTreeCache.onAccountSaved(updatedAccount);
+        cacheVersionService.markChanged(CacheVersionService.ACCOUNTS, null);
         log.info("账户信息更新成功: accountId={}", id);
         return updatedAccount;
     }
@@ -112,15 +165,25 @@ public class AccountService {
     @Transactional
     public void deleteAccount(Integer id) {
         log.info("删除账户: accountId={}", id);
-        // 检查科目是否存在
-        getAccountById(id);
-        // 检查是否有子科目
-        List<Account> children = accountRepository.findByParentID(id);
-        if (!children.isEmpty()) {
+        // 检查科目是否存在，并锁定科目行：并发新建的子科目须等待删除完成，之后因父科目不存在而失败
+        accountRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> {
+                    log.warn("账户不存在: accountId={}", id);
+                    return new BusinessException("科目不存在");
+                });
+        // 检查是否有子科目（查询数据库，本地科目树缓存可能尚未同步其他节点的变更）
+        if (accountRepository.existsByParentID(id)) {
             log.warn("删除账户失败: 存在子科目 - accountId={}", id);
             throw new BusinessException("该科目下存在子科目，无法删除");
         }
+        // 数据库外键会级联删除该科目的拆分，使已平衡的分录失衡，因此有拆分记录的科目不允许删除
+        if (splitRepository.existsByAccountID(id)) {
+            log.warn("删除账户失败: 存在分录拆分 - accountId={}", id);
+            throw new BusinessException("该科目已有分录记录，无法删除");
+        }
         accountRepository.deleteById(id);
+        accountTreeCache.onAccountDeleted(id);
+        cacheVersionService.markChanged(CacheVersionService.ACCOUNTS, null);
         log.info("账户删除成功: accountId={}", id);
     }
 }
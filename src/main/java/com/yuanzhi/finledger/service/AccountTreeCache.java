@@ -0,0 +1,195 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.dto.AccountTreeNode;
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 科目树缓存
+ * 在内存中维护科目表的不可变快照，由 AccountService 在事务提交后同步增删改，
+ * 科目树查询不再访问数据库。快照可能尚未同步其他节点的变更，只用于读取，编码唯一性等完整性校验仍查询数据库
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountTreeCache {
+    
+    private final AccountRepository accountRepository;
+    
+    /**
+     * 加载和替换快照时互斥；不用 synchronized，避免虚拟线程在持锁查库时钉住载体线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private volatile Snapshot snapshot;
+    
+    /**
+     * 获取嵌套的科目树
+     */
+    public List<AccountTreeNode> getTree() {
+        return snapshot().tree;
+    }
+    
+    /**
+     * 同时获取科目树及其版本（科目有变动时递增），保证二者一致
+     */
+    public Map.Entry<Long, List<AccountTreeNode>> getVersionedTree() {
+        Snapshot current = snapshot();
+        return Map.entry(current.version, current.tree);
+    }
+    
+    /**
+     * 获取全部科目（不含余额）
+     */
+    public List<Account> getAccounts() {
+        return new ArrayList<>(snapshot().accounts.values());
+    }
+    
+    /**
+     * 根据ID获取科目（不含余额），不存在时返回 null
+     */
+    public Account getAccount(Integer id) {
+        return snapshot().accounts.get(id);
+    }
+    
+    /**
+     * 科目新增或更新后同步到缓存（事务提交后生效）
+     */
+    public void onAccountSaved(Account account) {
+        Account copy = copyOf(account);
+        afterCommit(() -> apply(accounts -> accounts.put(copy.getId(), copy)));
+    }
+    
+    /**
+     * 科目删除后同步到缓存（事务提交后生效）
+     */
+    public void onAccountDeleted(Integer id) {
+        afterCommit(() -> apply(accounts -> accounts.remove(id)));
+    }
+    
+    /**
+     * 从数据库重新加载
+     */
+    public void reload() {
+        lock.lock();
+        try {
+            Map<Integer, Account> accounts = new LinkedHashMap<>();
+            for (Account account : accountRepository.findAll()) {
+                accounts.put(account.getId(), copyOf(account));
+            }
+            long version = snapshot != null ? snapshot.version + 1 : System.currentTimeMillis();
+            snapshot = new Snapshot(accounts, version);
+            log.info("科目树已加载: accountCount={}, version={}", accounts.size(), version);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * 写时复制：在副本上修改后整体替换快照
+     */
+    private void apply(Consumer<Map<Integer, Account>> change) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot();
+            Map<Integer, Account> accounts = new LinkedHashMap<>(current.accounts);
+            change.accept(accounts);
+            snapshot = new Snapshot(accounts, current.version + 1);
+            log.debug("科目树已更新: version={}", snapshot.version);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    private static Account copyOf(Account account) {
+        Account copy = new Account();
+        copy.setId(account.getId());
+        copy.setCode(account.getCode());
+        copy.setName(account.getName());
+        copy.setCategory(account.getCategory());
+        copy.setCurrency(account.getCurrency());
+        copy.setParentID(account.getParentID());
+        copy.setDebitAmount(null);
+        copy.setCreditAmount(null);
+        return copy;
+    }
+    
+    /**
+     * 不可变快照
+     */
+    private static final class Snapshot {
+        private final Map<Integer, Account> accounts;
+        private final List<AccountTreeNode> tree;
+        private final long version;
+        
+        private Snapshot(Map<Integer, Account> accounts, long version) {
+            this.accounts = Collections.unmodifiableMap(accounts);
+            this.version = version;
+            
+            Map<Integer, AccountTreeNode> nodes = new HashMap<>();
+            for (Account account : accounts.values()) {
+                nodes.put(account.getId(), new AccountTreeNode(account.getId(), account.getCode(), account.getName(),
+                        account.getCategory(), account.getCurrency(), account.getParentID(), new ArrayList<>()));
+            }
+            
+            List<AccountTreeNode> roots = new ArrayList<>();
+            for (AccountTreeNode node : nodes.values()) {
+                AccountTreeNode parent = node.getParentId() != null ? nodes.get(node.getParentId()) : null;
+                if (parent != null && parent != node) {
+                    parent.getChildren().add(node);
+                } else {
+                    roots.add(node);
+                }
+            }
+            Comparator<AccountTreeNode> byCode = Comparator.comparing(AccountTreeNode::getCode);
+            nodes.values().forEach(node -> node.getChildren().sort(byCode));
+            roots.sort(byCode);
+            
+            this.tree = Collections.unmodifiableList(roots);
+        }
+    }
+}
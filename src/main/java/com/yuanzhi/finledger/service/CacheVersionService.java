@@ -0,0 +1,133 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.entity.CacheVersion;
+import com.yuanzhi.finledger.repository.CacheVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存版本服务类
+ * 多节点部署时各节点的本地缓存（用户缓存、科目树缓存）通过 cache_versions 表失效：
+ * 数据变更时递增对应版本号，各节点定时轮询，发现版本号变化即清空本地缓存
+ */
+@Slf4j
+@Service
+public class CacheVersionService implements InitializingBean {
+    
+    public static final String USERS = "users";
+    public static final String ACCOUNTS = "accounts";
+    
+    private final CacheVersionRepository cacheVersionRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    
+    /**
+     * 缓存名称 -> 远程变更时的本地失效动作
+     */
+    private final Map<String, Runnable> invalidators;
+    
+    /**
+     * 本节点已同步的版本号
+     */
+    private final Map<String, Long> knownVersions = new ConcurrentHashMap<>();
+    
+    public CacheVersionService(CacheVersionRepository cacheVersionRepository, CacheManager cacheManager,
+                               AccountTreeCache accountTreeCache, PlatformTransactionManager transactionManager) {
+        this.cacheVersionRepository = cacheVersionRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.invalidators = Map.of(
+                USERS, () -> clear(USERS),
+                ACCOUNTS, accountTreeCache::reload);
+    }
+    
+    /**
+     * 初始化版本记录并加载当前版本号
+     * 在读写事务中执行，启用读写分离时读写都落在主库，避免依据从库的旧数据重复插入
+     */
+    @Override
+    public void afterPropertiesSet() {
+        for (String cacheName : invalidators.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!cacheVersionRepository.existsById(cacheName)) {
+                        cacheVersionRepository.save(new CacheVersion(cacheName, 0L));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // 其他节点同时启动并已插入
+                log.debug("缓存版本记录已存在: cacheName={}", cacheName);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (CacheVersion cacheVersion : cacheVersionRepository.findAll()) {
+                knownVersions.put(cacheVersion.getCacheName(), cacheVersion.getVersion());
+            }
+        });
+        log.info("缓存版本已加载: {}", knownVersions);
+    }
+    
+    /**
+     * 标记缓存数据已变更
+     * 版本号在当前事务中递增，提交后从本地缓存中剔除对应条目（key 为 null 时不剔除）
+     */
+    public void markChanged(String cacheName, Object key) {
+        cacheVersionRepository.increment(cacheName);
+        if (key == null) {
+            return;
+        }
+        Runnable evict = () -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+    
+    /**
+     * 轮询版本号，其他节点（或本节点）有变更时失效本地缓存
+     */
+    @Scheduled(fixedDelayString = "${finledger.cache.poll-interval:5s}", initialDelayString = "${finledger.cache.poll-interval:5s}")
+    public void poll() {
+        for (CacheVersion cacheVersion : cacheVersionRepository.findAll()) {
+            String cacheName = cacheVersion.getCacheName();
+            Long known = knownVersions.put(cacheName, cacheVersion.getVersion());
+            if (known != null && !known.equals(cacheVersion.getVersion())) {
+                Runnable invalidator = invalidators.get(cacheName);
+                if (invalidator != null) {
+                    log.info("缓存版本已变化，失效本地缓存: cacheName={}, version={}", cacheName, cacheVersion.getVersion());
+                    invalidator.run();
+                }
+            }
+        }
+    }
+    
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
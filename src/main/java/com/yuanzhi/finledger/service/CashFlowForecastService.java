@@ -0,0 +1,234 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.config.WriteCommitTracker;
+import com.yuanzhi.finledger.dto.CashFlowDay;
+import com.yuanzhi.finledger.dto.CashFlowForecast;
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.repository.AccountRepository;
+import com.yuanzhi.finledger.repository.PaymentRepository;
+import com.yuanzhi.finledger.repository.TransactionRepository;
+import com.yuanzhi.finledger.util.AccountCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 现金流预测服务类
+ * 预测未来若干天（默认90天）每天的预计流入、流出和现金余额：未结清交易按账期计入，已审批未支付的支付按支付日期计入，
+ * 期初为现金类科目的当前余额。交易的收付方向取自已审核分录记入的应收、应付科目，无法判断的交易单独汇总，不计入预测。
+ * 预测结果由后台定时任务在交易或支付有写入后重新计算并整体替换，查询直接返回内存中的结果
+ */
+@Slf4j
+@Service
+public class CashFlowForecastService {
+    
+    private static final int RECEIVABLE = 0;
+    private static final int PAYABLE = 1;
+    
+    private final TransactionRepository transactionRepository;
+    private final PaymentRepository paymentRepository;
+    private final AccountRepository accountRepository;
+    private final AccountTreeCache accountTreeCache;
+    private final WriteCommitTracker writeCommitTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final int horizonDays;
+    private final List<String> cashAccountCodes;
+    private final List<String> receivableAccountCodes;
+    private final List<String> payableAccountCodes;
+    private final Duration maxAge;
+    
+    /**
+     * 重新计算时互斥；不用 synchronized，避免虚拟线程在持锁查库时钉住载体线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private volatile CashFlowForecast forecast;
+    
+    /**
+     * 当前预测结果计算前交易、支付的写事务提交计数
+     */
+    private volatile long computedAtCommit = -1;
+    
+    public CashFlowForecastService(TransactionRepository transactionRepository, PaymentRepository paymentRepository,
+                                   AccountRepository accountRepository, AccountTreeCache accountTreeCache,
+                                   WriteCommitTracker writeCommitTracker, PlatformTransactionManager transactionManager,
+                                   @Value("${finledger.cash-flow.horizon-days:90}") int horizonDays,
+                                   @Value("${finledger.cash-flow.cash-accounts:1001,1002}") List<String> cashAccountCodes,
+                                   @Value("${finledger.cash-flow.receivable-accounts:1122}") List<String> receivableAccountCodes,
+                                   @Value("${finledger.cash-flow.payable-accounts:2202}") List<String> payableAccountCodes,
+                                   @Value("${finledger.cash-flow.max-age:5m}") Duration maxAge) {
+        this.transactionRepository = transactionRepository;
+        this.paymentRepository = paymentRepository;
+        this.accountRepository = accountRepository;
+        this.accountTreeCache = accountTreeCache;
+        this.writeCommitTracker = writeCommitTracker;
+        this.horizonDays = horizonDays;
+        this.cashAccountCodes = cashAccountCodes;
+        this.receivableAccountCodes = receivableAccountCodes;
+        this.payableAccountCodes = payableAccountCodes;
+        this.maxAge = maxAge;
+        // 读写事务：启用读写分离时在主库计算，不受从库复制延迟影响
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * 获取现金流预测（首次查询时后台尚未计算完成则同步计算）
+     */
+    public CashFlowForecast getForecast() {
+        CashFlowForecast current = forecast;
+        if (current == null) {
+            refresh();
+            current = forecast;
+        }
+        return current;
+    }
+    
+    /**
+     * 定时检查：交易或支付有写事务提交、跨天或超过最长有效期时重新计算；
+     * 分录审核（影响现金余额和交易方向）及其他节点的变更靠有效期感知，避免频繁过账时反复全表计算
+     */
+    @Scheduled(fixedDelayString = "${finledger.cash-flow.refresh-delay:10s}")
+    public void refreshIfStale() {
+        CashFlowForecast current = forecast;
+        boolean stale = current == null
+                || commitCount() != computedAtCommit
+                || !current.getStartDate().equals(LocalDate.now())
+                || current.getComputedAt().plus(maxAge).isBefore(LocalDateTime.now());
+        if (!stale) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.error("现金流预测计算失败，保留上次结果", e);
+        }
+    }
+    
+    /**
+     * 重新计算并替换预测结果
+     */
+    public void refresh() {
+        lock.lock();
+        try {
+            // 先记下提交计数：计算期间提交的写事务会让下一次检查再算一遍
+            long commitCount = commitCount();
+            long start = System.currentTimeMillis();
+            CashFlowForecast computed = transactionTemplate.execute(status -> compute(LocalDate.now()));
+            forecast = computed;
+            computedAtCommit = commitCount;
+            log.debug("现金流预测已更新: {}天, 耗时{}ms", horizonDays, System.currentTimeMillis() - start);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private CashFlowForecast compute(LocalDate today) {
+        LocalDateTime horizon = today.plusDays(horizonDays).atStartOfDay();
+        BigDecimal[] inflows = zeros(horizonDays);
+        BigDecimal[] outflows = zeros(horizonDays);
+        BigDecimal unscheduledInflow = BigDecimal.ZERO;
+        BigDecimal unscheduledOutflow = BigDecimal.ZERO;
+        BigDecimal unclassifiedAmount = BigDecimal.ZERO;
+        long unclassifiedCount = 0;
+        
+        for (Object[] row : transactionRepository.sumOpenAmountsByDueDay(horizon,
+                accountIdsOf(payableAccountCodes), accountIdsOf(receivableAccountCodes))) {
+            BigDecimal amount = (BigDecimal) row[2];
+            int direction = ((Number) row[1]).intValue();
+            if (direction != RECEIVABLE && direction != PAYABLE) {
+                unclassifiedAmount = unclassifiedAmount.add(amount);
+                unclassifiedCount += ((Number) row[3]).longValue();
+                continue;
+            }
+            boolean payable = direction == PAYABLE;
+            if (row[0] == null) {
+                if (payable) {
+                    unscheduledOutflow = unscheduledOutflow.add(amount);
+                } else {
+                    unscheduledInflow = unscheduledInflow.add(amount);
+                }
+                continue;
+            }
+            int day = dayIndex(today, row[0]);
+            if (payable) {
+                outflows[day] = outflows[day].add(amount);
+            } else {
+                inflows[day] = inflows[day].add(amount);
+            }
+        }
+        // 未填写支付日期的已审批支付视为随时支付，计入首日
+        for (Object[] row : paymentRepository.sumApprovedAmountsByDay(horizon)) {
+            int day = row[0] != null ? dayIndex(today, row[0]) : 0;
+            outflows[day] = outflows[day].add((BigDecimal) row[1]);
+        }
+        
+        BigDecimal openingBalance = getCashBalance();
+        BigDecimal balance = openingBalance;
+        BigDecimal totalInflow = BigDecimal.ZERO;
+        BigDecimal totalOutflow = BigDecimal.ZERO;
+        List<CashFlowDay> days = new ArrayList<>(horizonDays);
+        for (int i = 0; i < horizonDays; i++) {
+            BigDecimal net = inflows[i].subtract(outflows[i]);
+            balance = balance.add(net);
+            totalInflow = totalInflow.add(inflows[i]);
+            totalOutflow = totalOutflow.add(outflows[i]);
+            days.add(new CashFlowDay(today.plusDays(i), inflows[i], outflows[i], net, balance));
+        }
+        return new CashFlowForecast(today, openingBalance, List.copyOf(days), totalInflow, totalOutflow, balance,
+                unscheduledInflow, unscheduledOutflow, unclassifiedAmount, unclassifiedCount, LocalDateTime.now());
+    }
+    
+    /**
+     * 现金类科目（配置的科目编码及其明细科目）当前余额合计；科目编码从科目树缓存匹配，余额从数据库读取
+     */
+    private BigDecimal getCashBalance() {
+        return accountRepository.findAllById(accountIdsOf(cashAccountCodes)).stream()
+                .map(account -> AccountCategory.balanceOf(account.getCategory(),
+                        account.getDebitAmount(), account.getCreditAmount()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+    
+    /**
+     * 配置的科目编码及其明细科目的ID；没有匹配科目时返回不存在的ID，保证 IN 条件合法
+     */
+    private List<Integer> accountIdsOf(List<String> codes) {
+        List<Integer> ids = accountTreeCache.getAccounts().stream()
+                .filter(account -> account.getCode() != null
+                        && codes.stream().anyMatch(code -> account.getCode().startsWith(code)))
+                .map(Account::getId)
+                .toList();
+        return ids.isEmpty() ? List.of(-1) : ids;
+    }
+    
+    private long commitCount() {
+        return writeCommitTracker.getCommitCount(WriteCommitTracker.TRANSACTIONS, WriteCommitTracker.PAYMENTS);
+    }
+    
+    /**
+     * 日期在预测区间中的下标，已逾期的计入首日
+     */
+    private static int dayIndex(LocalDate today, Object value) {
+        LocalDate date = value instanceof Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) value;
+        return (int) Math.max(0, ChronoUnit.DAYS.between(today, date));
+    }
+    
+    private static BigDecimal[] zeros(int size) {
+        BigDecimal[] values = new BigDecimal[size];
+        Arrays.fill(values, BigDecimal.ZERO);
+        return values;
+    }
+}
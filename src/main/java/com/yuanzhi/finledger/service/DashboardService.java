@@ -0,0 +1,114 @@
+package com.yuanzhi.finledger.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yuanzhi.finledger.dto.CashFlowDay;
+import com.yuanzhi.finledger.dto.CashFlowForecast;
+import com.yuanzhi.finledger.dto.DashboardSummary;
+import com.yuanzhi.finledger.repository.EntryRepository;
+import com.yuanzhi.finledger.repository.PaymentRepository;
+import com.yuanzhi.finledger.repository.TransactionRepository;
+import com.yuanzhi.finledger.util.EntryStatus;
+import com.yuanzhi.finledger.util.PaymentStatus;
+import com.yuanzhi.finledger.util.RoleConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 首页概览服务类
+ * 队列数量用 COUNT 查询、最近记录用 LIMIT 查询，结果按角色缓存较短时间：
+ * 同一角色的并发请求在缓存失效时只有一个去查库，其余等待同一结果
+ */
+@Slf4j
+@Service
+public class DashboardService {
+    
+    private static final int FORECAST_DAYS = 30;
+    
+    private final TransactionRepository transactionRepository;
+    private final EntryRepository entryRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final AccountTreeCache accountTreeCache;
+    private final CashFlowForecastService cashFlowForecastService;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int recentSize;
+    
+    /**
+     * 角色 -> 概览
+     */
+    private final Cache<String, DashboardSummary> summaries;
+    
+    public DashboardService(TransactionRepository transactionRepository, EntryRepository entryRepository,
+                            PaymentRepository paymentRepository, PaymentService paymentService,
+                            AccountTreeCache accountTreeCache, CashFlowForecastService cashFlowForecastService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${finledger.dashboard.cache-ttl:5s}") Duration cacheTtl,
+                            @Value("${finledger.dashboard.recent-size:5}") int recentSize) {
+        this.transactionRepository = transactionRepository;
+        this.entryRepository = entryRepository;
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        this.accountTreeCache = accountTreeCache;
+        this.cashFlowForecastService = cashFlowForecastService;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.recentSize = recentSize;
+        this.summaries = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+    
+    /**
+     * 获取指定角色的首页概览（缓存有效期内直接返回缓存结果）
+     */
+    public DashboardSummary getSummary(String role) {
+        return summaries.get(role, this::buildSummary);
+    }
+    
+    private DashboardSummary buildSummary(String role) {
+        log.debug("生成首页概览: role={}", role);
+        boolean managerOrBoss = RoleConstants.MANAGER.equals(role) || RoleConstants.BOSS.equals(role);
+        DashboardSummary summary = readOnlyTransactionTemplate.execute(status -> {
+            DashboardSummary result = new DashboardSummary();
+            result.setRole(role);
+            result.setPendingTransactions(transactionRepository.countByStatus("PENDING"));
+            result.setSubmittedEntries(entryRepository.countByStatus(EntryStatus.SUBMITTED));
+            result.setPendingPayments(paymentRepository.countByStatus(PaymentStatus.PENDING));
+            result.setTotalAccounts(accountTreeCache.getAccounts().size());
+            result.setRecentTransactions(transactionRepository.findRecent(Limit.of(recentSize)));
+            if (RoleConstants.ACCOUNTANT.equals(role)) {
+                result.setRejectedEntries(entryRepository.countByStatus(EntryStatus.REJECTED));
+            }
+            if (managerOrBoss) {
+                result.setPendingTransactionAmount(transactionRepository.sumTotalAmountByStatus("PENDING"));
+                result.setPendingPaymentAmount(paymentRepository.sumAmountByStatus(PaymentStatus.PENDING));
+                result.setApprovedPaymentAmount(paymentRepository.sumAmountByStatus(PaymentStatus.APPROVED));
+                result.setPendingPaymentItems(paymentRepository
+                        .findByStatusOrderByIdDesc(PaymentStatus.PENDING, Limit.of(recentSize)).stream()
+                        .map(paymentService::toPaymentView)
+                        .toList());
+            }
+            return result;
+        });
+        if (RoleConstants.BOSS.equals(role)) {
+            // 现金流预测由后台预计算，这里只读取内存中的结果
+            CashFlowForecast forecast = cashFlowForecastService.getForecast();
+            List<CashFlowDay> days = forecast.getDays();
+            summary.setCashBalance(forecast.getOpeningBalance());
+            if (!days.isEmpty()) {
+                summary.setForecastBalance30Days(days.get(Math.min(FORECAST_DAYS, days.size()) - 1).getBalance());
+            }
+        }
+        summary.setGeneratedAt(LocalDateTime.now());
+        return summary;
+    }
+}
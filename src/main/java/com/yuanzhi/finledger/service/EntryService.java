@@ -1,19 +1,42 @@
 package com.yuanzhi.finledger.service;
 
+import com.yuanzhi.finledger.dto.BulkEntryResult;
+import com.yuanzhi.finledger.dto.BulkStatusRequest;
+import com.yuanzhi.finledger.dto.BulkStatusResult;
+import com.yuanzhi.finledger.dto.CreateEntryRequest;
+import com.yuanzhi.finledger.dto.CursorPage;
+import com.yuanzhi.finledger.dto.EntryView;
+import com.yuanzhi.finledger.dto.SplitView;
+import com.yuanzhi.finledger.entity.Account;
 import com.yuanzhi.finledger.entity.Entry;
 import com.yuanzhi.finledger.entity.Split;
 import com.yuanzhi.finledger.entity.Transaction;
 import com.yuanzhi.finledger.exception.BusinessException;
+import com.yuanzhi.finledger.repository.AccountRepository;
 import com.yuanzhi.finledger.repository.EntryRepository;
 import com.yuanzhi.finledger.repository.SplitRepository;
 import com.yuanzhi.finledger.repository.TransactionRepository;
+import com.yuanzhi.finledger.util.EntryStatus;
+import com.yuanzhi.finledger.util.KeysetPagination;
+import com.yuanzhi.finledger.util.LedgerBalance;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 分录服务类
@@ -24,9 +47,31 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EntryService {
     
+    /**
+     * 单次批量过账的最大分录数
+     */
+    private static final int BULK_MAX_ENTRIES = 1000;
+    
+    /**
+     * 每批刷新到数据库的分录数
+     */
+    private static final int BULK_FLUSH_SIZE = 100;
+    
+    /**
+     * 批量加载拆分时每条 IN 查询包含的最大分录数
+     */
+    private static final int VIEW_BATCH_SIZE = 1000;
+    
     private final EntryRepository entryRepository;
     private final SplitRepository splitRepository;
     private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final PeriodCloseService periodCloseService;
+    private final EntityManager entityManager;
+    private final LedgerMetrics ledgerMetrics;
+    private final AccountTreeCache accountTreeCache;
+    private final LedgerEventService ledgerEventService;
+    private final SearchIndexService searchIndexService;
     
     /**
      * 创建分录
@@ -35,30 +80,26 @@ public class EntryService {
     @Transactional
     public Entry createEntry(Entry entry, List<Split> splits) {
         log.info("创建分录: transactionId={}, summary={}", entry.getTransactionID(), entry.getSummary());
+        ledgerMetrics.startPosting(splits == null ? 0 : splits.size());
         
-        // 验证借贷平衡
-        BigDecimal totalDebit = splits.stream()
-                .map(Split::getDebitAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalCredit = splits.stream()
-                .map(Split::getCreditAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        if (totalDebit.compareTo(totalCredit) != 0) {
-            log.error("创建分录失败: 借贷金额不平衡 - 借方总额={}, 贷方总额={}", totalDebit, totalCredit);
-            throw new BusinessException("借贷金额不平衡，借方总额：" + totalDebit + "，贷方总额：" + totalCredit);
+        validateInitialStatus(entry);
+        if (splits == null) {
+            throw new BusinessException("分录拆分不能为空");
         }
+        validateSplits(splits, findExistingAccountIds(List.of(splits)));
+        // 验证借贷平衡
+        LedgerBalance.requireBalanced(splits);
         
         // 保存分录
         Entry savedEntry = entryRepository.save(entry);
+        searchIndexService.entriesSaved(List.of(savedEntry));
         log.info("分录创建成功: entryId={}", savedEntry.getId());
         
-        // 保存分录拆分
+        // 保存分录拆分（ID由号段分配，提交时按批次写入）
         for (Split split : splits) {
             split.setEntryID(savedEntry.getId());
-            splitRepository.save(split);
         }
+        splitRepository.saveAll(splits);
         log.debug("分录拆分保存成功: splitCount={}", splits.size());
         
         // 更新交易状态
@@ -71,12 +112,177 @@ public class EntryService {
         transactionRepository.save(transaction);
         log.info("交易状态已更新为已过账: transactionId={}", entry.getTransactionID());
         
+        ledgerEventService.transactionStatusChanged(List.of(transaction.getId()), "POSTED");
+        if (EntryStatus.SUBMITTED.equals(savedEntry.getStatus())) {
+            ledgerEventService.entryStatusChanged(List.of(savedEntry.getId()), EntryStatus.SUBMITTED);
+        }
         return savedEntry;
     }
     
+    /**
+     * 批量过账
+     * 逐条校验后按批次写入分录和拆分，校验失败的分录不影响其他分录，返回每条分录的处理结果
+     */
+    @Transactional
+    public List<BulkEntryResult> createEntries(List<CreateEntryRequest> requests) {
+        log.info("批量过账: entryCount={}", requests.size());
+        if (requests.size() > BULK_MAX_ENTRIES) {
+            throw new BusinessException("单次批量过账不能超过" + BULK_MAX_ENTRIES + "条分录");
+        }
+        
+        // 一次性加载涉及的交易记录，避免逐条查询
+        Set<Integer> transactionIds = requests.stream()
+                .map(CreateEntryRequest::getEntry)
+                .filter(Objects::nonNull)
+                .map(Entry::getTransactionID)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Integer> existingTransactionIds = transactionRepository.findAllById(transactionIds).stream()
+                .map(Transaction::getId)
+                .collect(Collectors.toSet());
+        // 拆分引用的科目同样一次性加载，不存在的科目在校验阶段拒绝，避免 flush 时外键失败导致整批回滚
+        Set<Integer> existingAccountIds = findExistingAccountIds(requests.stream()
+                .map(CreateEntryRequest::getSplits)
+                .filter(Objects::nonNull)
+                .toList());
+        
+        BulkEntryResult[] results = new BulkEntryResult[requests.size()];
+        List<Integer> pendingIndexes = new ArrayList<>();
+        Set<Integer> postedTransactionIds = new HashSet<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            CreateEntryRequest request = requests.get(i);
+            Entry entry = request.getEntry();
+            List<Split> splits = request.getSplits();
+            try {
+                if (entry == null || splits == null || splits.isEmpty()) {
+                    throw new BusinessException("分录及拆分不能为空");
+                }
+                if (!existingTransactionIds.contains(entry.getTransactionID())) {
+                    throw new BusinessException("交易记录不存在");
+                }
+                validateInitialStatus(entry);
+                validateSplits(splits, existingAccountIds);
+                LedgerBalance.requireBalanced(splits);
+            } catch (BusinessException e) {
+                results[i] = BulkEntryResult.failure(i, e.getMessage());
+                continue;
+            }
+            pendingIndexes.add(i);
+            postedTransactionIds.add(entry.getTransactionID());
+            if (pendingIndexes.size() == BULK_FLUSH_SIZE) {
+                persistBatch(requests, pendingIndexes, results);
+            }
+        }
+        persistBatch(requests, pendingIndexes, results);
+        
+        // 用一条语句更新所有涉及交易的状态
+        if (!postedTransactionIds.isEmpty()) {
+            transactionRepository.updateStatusByIdIn(postedTransactionIds, "POSTED");
+        }
+        ledgerEventService.transactionStatusChanged(postedTransactionIds, "POSTED");
+        ledgerEventService.entryStatusChanged(Arrays.stream(results)
+                .filter(BulkEntryResult::isSuccess)
+                .map(result -> requests.get(result.getIndex()).getEntry())
+                .filter(entry -> EntryStatus.SUBMITTED.equals(entry.getStatus()))
+                .map(Entry::getId)
+                .toList(), EntryStatus.SUBMITTED);
+        
+        long successCount = Arrays.stream(results).filter(BulkEntryResult::isSuccess).count();
+        log.info("批量过账完成: total={}, success={}, failed={}",
+                requests.size(), successCount, requests.size() - successCount);
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * 写入一批已校验的分录
+     * 分录ID在持久化时即由号段分配，拆分可直接引用，flush 时由 Hibernate 以 JDBC 批处理提交
+     */
+    private void persistBatch(List<CreateEntryRequest> requests, List<Integer> indexes, BulkEntryResult[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            entries.add(requests.get(index).getEntry());
+        }
+        entryRepository.saveAll(entries);
+        searchIndexService.entriesSaved(entries);
+        
+        List<Split> splits = new ArrayList<>();
+        for (Integer index : indexes) {
+            CreateEntryRequest request = requests.get(index);
+            for (Split split : request.getSplits()) {
+                split.setEntryID(request.getEntry().getId());
+                splits.add(split);
+            }
+            results[index] = BulkEntryResult.success(index, request.getEntry().getId());
+        }
+        splitRepository.saveAll(splits);
+        
+        // 刷新并清空持久化上下文，保持内存占用稳定
+        entityManager.flush();
+        entityManager.clear();
+        log.debug("批量过账写入一批: entryCount={}, splitCount={}", entries.size(), splits.size());
+        indexes.clear();
+    }
+    
+    /**
+     * 验证新建分录的状态
+     * 新建分录只能为草稿或待审核，审核通过必须经过状态更新，以便同步科目余额
+     */
+    private void validateInitialStatus(Entry entry) {
+        if (entry.getStatus() == null) {
+            entry.setStatus(EntryStatus.DRAFT);
+        }
+        if (!EntryStatus.DRAFT.equals(entry.getStatus()) && !EntryStatus.SUBMITTED.equals(entry.getStatus())) {
+            throw new BusinessException("新建分录的状态只能为草稿或待审核");
+        }
+    }
+    
+    /**
+     * 查询拆分引用的科目中实际存在的科目ID
+     * 按科目树缓存校验，不逐次查库；缓存中没有的（其他节点新建、本节点尚未刷新）再查库确认。
+     * 校验后被其他节点删除的科目由 splits 表的外键兜底
+     */
+    private Set<Integer> findExistingAccountIds(List<List<Split>> splitLists) {
+        Set<Integer> existing = new HashSet<>();
+        Set<Integer> missing = new HashSet<>();
+        splitLists.stream()
+                .flatMap(List::stream)
+                .filter(Objects::nonNull)
+                .map(Split::getAccountID)
+                .filter(Objects::nonNull)
+                .forEach(accountId -> (accountTreeCache.getAccount(accountId) != null ? existing : missing)
+                        .add(accountId));
+        if (!missing.isEmpty()) {
+            accountRepository.findAllById(missing).forEach(account -> existing.add(account.getId()));
+        }
+        return existing;
+    }
+    
+    /**
+     * 验证拆分的科目和金额
+     * 科目必须存在，借贷金额不能为空（不发生的一方填 0）
+     */
+    private void validateSplits(List<Split> splits, Set<Integer> existingAccountIds) {
+        for (Split split : splits) {
+            if (split == null) {
+                throw new BusinessException("分录拆分不能为空");
+            }
+            if (split.getAccountID() == null || !existingAccountIds.contains(split.getAccountID())) {
+                throw new BusinessException("科目不存在: " + split.getAccountID());
+            }
+            if (split.getDebitAmount() == null || split.getCreditAmount() == null) {
+                throw new BusinessException("拆分的借方金额和贷方金额不能为空");
+            }
+        }
+    }
+    
     /**
      * 根据ID获取分录
      */
+    @Transactional(readOnly = true)
     public Entry getEntryById(Integer id) {
         log.debug("查询分录: entryId={}", id);
         return entryRepository.findById(id)
@@ -89,14 +295,33 @@ public class EntryService {
     /**
      * 获取所有分录
      */
+    @Transactional(readOnly = true)
     public List<Entry> getAllEntries() {
         log.debug("查询所有分录");
         return entryRepository.findAll();
     }
     
+    /**
+     * 游标分页查询分录
+     * 按 (createdDate, id) 倒序，可按状态、录入用户、创建日期范围过滤
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Entry> getEntryPage(String status, Integer userId, LocalDateTime startDate,
+                                          LocalDateTime endDate, String cursor, Integer size) {
+        log.debug("分页查询分录: status={}, userId={}, startDate={}, endDate={}, cursor={}, size={}",
+                status, userId, startDate, endDate, cursor, size);
+        Specification<Entry> filters = Specification.allOf(
+                KeysetPagination.equal("status", status),
+                KeysetPagination.equal("userID", userId),
+                KeysetPagination.between("createdDate", startDate, endDate));
+        return KeysetPagination.fetch(entryRepository, filters, "createdDate", cursor, size,
+                Entry::getCreatedDate, Entry::getId);
+    }
+    
     /**
      * 获取待审核分录
      */
+    @Transactional(readOnly = true)
     public List<Entry> getSubmittedEntries() {
         log.debug("查询待审核分录");
         return entryRepository.findSubmittedEntries();
@@ -105,6 +330,7 @@ public class EntryService {
     /**
      * 根据交易ID获取分录
      */
+    @Transactional(readOnly = true)
     public List<Entry> getEntriesByTransaction(Integer transactionId) {
         log.debug("根据交易ID查询分录: transactionId={}", transactionId);
         return entryRepository.findByTransactionID(transactionId);
@@ -113,30 +339,217 @@ public class EntryService {
     /**
      * 根据分录ID获取拆分
      */
+    @Transactional(readOnly = true)
     public List<Split> getSplitsByEntry(Integer entryId) {
         log.debug("查询分录拆分: entryId={}", entryId);
         return splitRepository.findByEntryID(entryId);
     }
     
+    /**
+     * 转换为分录视图
+     * includeSplits 为 true 时按批次用 IN 查询一次性加载全部拆分，不再逐条查询；
+     * 视图不访问延迟加载的关联对象，科目编码和名称取自科目树缓存
+     */
+    @Transactional(readOnly = true)
+    public List<EntryView> toEntryViews(List<Entry> entries, boolean includeSplits) {
+        Map<Integer, List<SplitView>> splitsByEntry = new HashMap<>();
+        if (includeSplits && !entries.isEmpty()) {
+            List<Integer> entryIds = entries.stream().map(Entry::getId).collect(Collectors.toList());
+            for (int from = 0; from < entryIds.size(); from += VIEW_BATCH_SIZE) {
+                List<Integer> batch = entryIds.subList(from, Math.min(from + VIEW_BATCH_SIZE, entryIds.size()));
+                for (SplitView split : toSplitViews(splitRepository.findByEntryIDIn(batch))) {
+                    splitsByEntry.computeIfAbsent(split.getEntryID(), k -> new ArrayList<>()).add(split);
+                }
+            }
+        }
+        
+        List<EntryView> views = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            views.add(new EntryView(entry.getId(), entry.getSummary(), entry.getTotalAmount(), entry.getCreatedDate(),
+                    entry.getStatus(), entry.getTransactionID(), entry.getUserID(),
+                    includeSplits ? splitsByEntry.getOrDefault(entry.getId(), new ArrayList<>()) : null));
+        }
+        return views;
+    }
+    
+    public EntryView toEntryView(Entry entry, boolean includeSplits) {
+        return toEntryViews(List.of(entry), includeSplits).get(0);
+    }
+    
+    /**
+     * 转换为拆分视图，科目编码和名称取自科目树缓存
+     */
+    public List<SplitView> toSplitViews(List<Split> splits) {
+        List<SplitView> views = new ArrayList<>(splits.size());
+        for (Split split : splits) {
+            Account account = accountTreeCache.getAccount(split.getAccountID());
+            views.add(new SplitView(split.getId(), split.getEntryID(), split.getAccountID(),
+                    account != null ? account.getCode() : null, account != null ? account.getName() : null,
+                    split.getQuantity(), split.getUnitPrice(), split.getDebitAmount(), split.getCreditAmount(),
+                    split.getTaxAmount()));
+        }
+        return views;
+    }
+    
     /**
      * 更新分录状态
+     * 按状态机校验流转，以一条条件 UPDATE（WHERE id = ? AND status IN (...)）完成，并发审核时只有一方生效；
+     * 审核通过时将拆分金额记入科目余额，已审核分录被拒绝时冲回
      */
     @Transactional
     public Entry updateEntryStatus(Integer id, String status) {
         log.info("更新分录状态: entryId={}, status={}", id, status);
+        if (!EntryStatus.isValid(status)) {
+            throw new BusinessException("无效的分录状态: " + status);
+        }
+        ledgerMetrics.startStatusChange("entry", status);
+        
+        List<String> sources = EntryStatus.unapprovedSourcesOf(status);
+        boolean applied = !sources.isEmpty() && entryRepository.transitionStatus(id, sources, status) > 0;
+        boolean reversed = false;
+        if (!applied && EntryStatus.canTransition(EntryStatus.APPROVED, status)) {
+            applied = reversed = entryRepository.transitionStatus(id, List.of(EntryStatus.APPROVED), status) > 0;
+        }
+        if (!applied) {
+            throw transitionRejected(id, status);
+        }
+        
         Entry entry = getEntryById(id);
-        entry.setStatus(status);
-        Entry updatedEntry = entryRepository.save(entry);
+        if (EntryStatus.APPROVED.equals(status)) {
+            applyAccountBalances(List.of(id), 1);
+            periodCloseService.invalidateFrom(entry.getCreatedDate());
+        } else if (reversed) {
+            applyAccountBalances(List.of(id), -1);
+            periodCloseService.invalidateFrom(entry.getCreatedDate());
+        }
+        ledgerEventService.entryStatusChanged(List.of(id), status);
         log.info("分录状态更新成功: entryId={}, status={}", id, status);
-        return updatedEntry;
+        return entry;
+    }
+    
+    /**
+     * 状态流转未生效时读取当前状态，区分分录不存在与非法流转
+     */
+    private BusinessException transitionRejected(Integer id, String status) {
+        String current = getEntryById(id).getStatus();
+        log.warn("分录状态流转被拒绝: entryId={}, from={}, to={}", id, current, status);
+        return new BusinessException("分录当前状态为 " + current + "，不能变更为 " + status);
+    }
+    
+    /**
+     * 批量更新分录状态
+     * 在一个事务内先按ID顺序锁定可流转的分录，再用一条条件 UPDATE 完成流转，科目余额按全部生效分录一次汇总记入或冲回；
+     * 不满足流转条件的分录不影响其他分录，返回每条分录的处理结果
+     */
+    @Transactional
+    public List<BulkStatusResult> updateEntryStatuses(BulkStatusRequest request) {
+        String status = request.getStatus();
+        log.info("批量更新分录状态: status={}", status);
+        if (!EntryStatus.isValid(status)) {
+            throw new BusinessException("无效的分录状态: " + status);
+        }
+        List<Integer> ids = resolveBulkIds(request);
+        
+        List<Entry> forwarded = transitionLocked(ids, EntryStatus.unapprovedSourcesOf(status), status);
+        List<Entry> reversed = EntryStatus.canTransition(EntryStatus.APPROVED, status)
+                ? transitionLocked(ids, List.of(EntryStatus.APPROVED), status)
+                : List.of();
+        if (EntryStatus.APPROVED.equals(status)) {
+            applyBulkBalances(forwarded, 1);
+        }
+        applyBulkBalances(reversed, -1);
+        
+        Set<Integer> changedIds = new HashSet<>();
+        forwarded.forEach(entry -> changedIds.add(entry.getId()));
+        reversed.forEach(entry -> changedIds.add(entry.getId()));
+        Map<Integer, String> currentStatuses = new HashMap<>();
+        for (Entry entry : entryRepository.findAllById(
+                ids.stream().filter(id -> !changedIds.contains(id)).toList())) {
+            currentStatuses.put(entry.getId(), entry.getStatus());
+        }
+        
+        List<BulkStatusResult> results = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            if (changedIds.contains(id)) {
+                results.add(BulkStatusResult.success(id, status));
+            } else if (!currentStatuses.containsKey(id)) {
+                results.add(BulkStatusResult.failure(id, null, "分录不存在"));
+            } else {
+                String current = currentStatuses.get(id);
+                results.add(BulkStatusResult.failure(id, current, "分录当前状态为 " + current + "，不能变更为 " + status));
+            }
+        }
+        ledgerEventService.entryStatusChanged(changedIds, status);
+        log.info("批量更新分录状态完成: status={}, total={}, success={}", status, ids.size(), changedIds.size());
+        return results;
+    }
+    
+    /**
+     * 确定批量处理的分录ID
+     * 未指定ID时按过滤条件选取可流转到目标状态的分录，不包含已审核分录（冲回余额须显式指定ID）
+     */
+    private List<Integer> resolveBulkIds(BulkStatusRequest request) {
+        if (request.getIds() != null) {
+            List<Integer> ids = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+            if (ids.size() > BULK_MAX_ENTRIES) {
+                throw new BusinessException("单次批量处理不能超过" + BULK_MAX_ENTRIES + "条分录");
+            }
+            return ids;
+        }
+        List<String> sources = EntryStatus.unapprovedSourcesOf(request.getStatus());
+        if (sources.isEmpty()) {
+            return List.of();
+        }
+        Specification<Entry> filters = Specification.allOf(
+                (root, query, cb) -> root.get("status").in(sources),
+                KeysetPagination.equal("userID", request.getUserId()),
+                KeysetPagination.between("createdDate",
+                        request.getStartDate() != null ? request.getStartDate().atStartOfDay() : null,
+                        request.getEndDate() != null ? request.getEndDate().plusDays(1).atStartOfDay() : null));
+        return entryRepository.findBy(filters, query -> query.sortBy(Sort.by("id")).limit(BULK_MAX_ENTRIES).all())
+                .stream()
+                .map(Entry::getId)
+                .toList();
+    }
+    
+    /**
+     * 锁定当前状态属于 sources 的分录并流转到目标状态，返回实际流转的分录（流转前的快照）
+     */
+    private List<Entry> transitionLocked(List<Integer> ids, List<String> sources, String status) {
+        if (ids.isEmpty() || sources.isEmpty()) {
+            return List.of();
+        }
+        List<Entry> entries = entryRepository.findByIdInAndStatusInForUpdate(ids, sources);
+        if (!entries.isEmpty()) {
+            entryRepository.transitionStatuses(entries.stream().map(Entry::getId).toList(), sources, status);
+        }
+        return entries;
+    }
+    
+    private void applyBulkBalances(List<Entry> entries, int sign) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        applyAccountBalances(entries.stream().map(Entry::getId).toList(), sign);
+        entries.stream()
+                .map(Entry::getCreatedDate)
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .ifPresent(periodCloseService::invalidateFrom);
     }
     
     /**
      * 删除分录
+     * 已审核的分录先冲回科目余额
      */
     @Transactional
     public void deleteEntry(Integer id) {
         log.info("删除分录: entryId={}", id);
+        Entry entry = lockEntry(id);
+        if (EntryStatus.APPROVED.equals(entry.getStatus())) {
+            applyAccountBalances(List.of(id), -1);
+        }
+        
         // 删除关联的分录拆分
         List<Split> splits = splitRepository.findByEntryID(id);
         splitRepository.deleteAll(splits);
@@ -144,7 +557,52 @@ public class EntryService {
         
         // 删除分录
         entryRepository.deleteById(id);
+        searchIndexService.entryDeleted(id);
+        if (EntryStatus.APPROVED.equals(entry.getStatus())) {
+            periodCloseService.invalidateFrom(entry.getCreatedDate());
+        }
         log.info("分录删除成功: entryId={}", id);
     }
+    
+    /**
+     * 删除交易下的全部分录
+     * 数据库外键会级联删除分录和拆分，但不会冲回科目余额；因此先锁定分录，冲回已审核分录并重算受影响的已结账期间，再显式删除
+     */
+    @Transactional
+    public void deleteEntriesOfTransaction(Integer transactionId) {
+        List<Entry> entries = entryRepository.findByTransactionIDForUpdate(transactionId);
+        if (entries.isEmpty()) {
+            return;
+        }
+        applyBulkBalances(entries.stream()
+                .filter(entry -> EntryStatus.APPROVED.equals(entry.getStatus()))
+                .toList(), -1);
+        List<Integer> ids = entries.stream().map(Entry::getId).toList();
+        splitRepository.deleteByEntryIDs(ids);
+        entryRepository.deleteByIds(ids);
+        log.info("已删除交易下的分录: transactionId={}, entryIds={}", transactionId, ids);
+    }
+    
+    /**
+     * 加行锁读取分录，避免删除与并发审核交错导致科目余额记错
+     */
+    private Entry lockEntry(Integer id) {
+        return entryRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> {
+                    log.warn("分录不存在: entryId={}", id);
+                    return new BusinessException("分录不存在");
+                });
+    }
+    
+    /**
+     * 增量更新科目余额
+     * 先按科目ID顺序加锁，再用一条语句按科目汇总更新，避免并发审核时死锁
+     */
+    private void applyAccountBalances(List<Integer> entryIds, int sign) {
+        List<Integer> accountIds = accountRepository.lockAccountsOfEntries(entryIds);
+        int updated = accountRepository.applySplitAmounts(entryIds, sign);
+        log.info("科目余额已{}: entryIds={}, accountCount={}", sign > 0 ? "记入" : "冲回", entryIds, updated);
+        log.debug("已锁定科目: accountIds={}", accountIds);
+    }
 }
 
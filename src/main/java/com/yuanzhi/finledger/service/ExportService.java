@@ -0,0 +1,192 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.entity.Entry;
+import com.yuanzhi.finledger.entity.Split;
+import com.yuanzhi.finledger.entity.Transaction;
+import com.yuanzhi.finledger.exception.BusinessException;
+import com.yuanzhi.finledger.util.CsvUtil;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出服务类
+ * 以只读事务逐行读取（JDBC 流式结果集）并直接写出，不在内存中汇总结果，
+ * 内存占用与导出行数无关
+ */
+@Slf4j
+@Service
+public class ExportService {
+    
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+    
+    /**
+     * 资源名 -> 导出定义
+     */
+    private static final Map<String, ExportDefinition<?>> EXPORTS = Map.of(
+            "transactions", new ExportDefinition<>(Transaction.class, columns(
+                    column("id", Transaction::getId),
+                    column("date", Transaction::getDate),
+                    column("supplier_client", Transaction::getSupplierClient),
+                    column("project", Transaction::getProject),
+                    column("due_date", Transaction::getDueDate),
+                    column("product_service", Transaction::getProductService),
+                    column("quantity", Transaction::getQuantity),
+                    column("unit_price", Transaction::getUnitPrice),
+                    column("total_amount", Transaction::getTotalAmount),
+                    column("tax_rate", Transaction::getTaxRate),
+                    column("status", Transaction::getStatus),
+                    column("user_id", Transaction::getUserID))),
+            "entries", new ExportDefinition<>(Entry.class, columns(
+                    column("id", Entry::getId),
+                    column("summary", Entry::getSummary),
+                    column("total_amount", Entry::getTotalAmount),
+                    column("created_date", Entry::getCreatedDate),
+                    column("status", Entry::getStatus),
+                    column("transaction_id", Entry::getTransactionID),
+                    column("user_id", Entry::getUserID))),
+            "splits", new ExportDefinition<>(Split.class, columns(
+                    column("id", Split::getId),
+                    column("entry_id", Split::getEntryID),
+                    column("account_id", Split::getAccountID),
+                    column("quantity", Split::getQuantity),
+                    column("unit_price", Split::getUnitPrice),
+                    column("debit_amount", Split::getDebitAmount),
+                    column("credit_amount", Split::getCreditAmount),
+                    column("tax_amount", Split::getTaxAmount)))
+    );
+    
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    
+    /**
+     * @param fetchSize JDBC fetch size；MySQL 驱动下 Integer.MIN_VALUE 表示逐行流式读取
+     */
+    public ExportService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${finledger.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+    
+    /**
+     * 校验导出参数，需在开始写出响应之前调用
+     */
+    public void validate(String resource, String format) {
+        if (!EXPORTS.containsKey(resource)) {
+            throw new BusinessException("不支持导出的数据: " + resource);
+        }
+        if (!FORMAT_CSV.equals(format) && !FORMAT_NDJSON.equals(format)) {
+            throw new BusinessException("不支持的导出格式: " + format);
+        }
+    }
+    
+    /**
+     * 导出数据到输出流
+     */
+    public void export(String resource, String format, boolean gzip, OutputStream out) throws IOException {
+        validate(resource, format);
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        long start = System.currentTimeMillis();
+        try {
+            Long rows = readOnlyTransaction.execute(status -> write(EXPORTS.get(resource), format, writer));
+            writer.flush();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+            log.info("数据导出完成: resource={}, format={}, gzip={}, rows={}, elapsed={}ms",
+                    resource, format, gzip, rows, System.currentTimeMillis() - start);
+        } catch (UncheckedIOException e) {
+            // 客户端中断下载等写出异常
+            log.warn("数据导出中断: resource={}, format={}, error={}", resource, format, e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+    
+    private <T> long write(ExportDefinition<T> definition, String format, Writer writer) {
+        List<String> headers = new ArrayList<>(definition.columns.keySet());
+        long count = 0;
+        try (Stream<T> rows = entityManager
+                .createQuery("SELECT r FROM " + definition.entityClass.getSimpleName() + " r ORDER BY r.id",
+                        definition.entityClass)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            if (FORMAT_CSV.equals(format)) {
+                writer.write(CsvUtil.line(headers));
+            }
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                Map<String, Object> values = new LinkedHashMap<>();
+                definition.columns.forEach((name, extractor) -> values.put(name, extractor.apply(row)));
+                if (FORMAT_CSV.equals(format)) {
+                    writer.write(CsvUtil.line(new ArrayList<>(values.values())));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(values));
+                    writer.write('\n');
+                }
+                // 写出后立即从持久化上下文中移除，避免一级缓存随行数增长
+                entityManager.detach(row);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+    
+    @SafeVarargs
+    private static <T> Map<String, Function<T, Object>> columns(Map.Entry<String, Function<T, Object>>... columns) {
+        Map<String, Function<T, Object>> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Function<T, Object>> column : columns) {
+            map.put(column.getKey(), column.getValue());
+        }
+        return map;
+    }
+    
+    private static <T> Map.Entry<String, Function<T, Object>> column(String name, Function<T, Object> extractor) {
+        return Map.entry(name, extractor);
+    }
+    
+    /**
+     * 导出定义：实体类型及列（列名 -> 取值函数）
+     */
+    private static final class ExportDefinition<T> {
+        private final Class<T> entityClass;
+        private final Map<String, Function<T, Object>> columns;
+        
+        private ExportDefinition(Class<T> entityClass, Map<String, Function<T, Object>> columns) {
+            this.entityClass = entityClass;
+            this.columns = columns;
+        }
+    }
+}
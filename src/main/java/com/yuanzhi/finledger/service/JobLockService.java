@@ -0,0 +1,66 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.entity.JobLock;
+import com.yuanzhi.finledger.repository.JobLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 任务锁服务类
+ * 多节点部署时，通过锁定 job_locks 表中的记录使同类操作在各节点间串行执行，锁随事务提交或回滚释放
+ */
+@Slf4j
+@Service
+public class JobLockService implements InitializingBean {
+    
+    public static final String PAYMENT_RUN = "payment-run";
+    public static final String PERIOD_CLOSE = "period-close";
+    
+    private static final List<String> LOCK_NAMES = List.of(PAYMENT_RUN, PERIOD_CLOSE);
+    
+    private final JobLockRepository jobLockRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    public JobLockService(JobLockRepository jobLockRepository, PlatformTransactionManager transactionManager) {
+        this.jobLockRepository = jobLockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * 初始化锁记录
+     */
+    @Override
+    public void afterPropertiesSet() {
+        for (String lockName : LOCK_NAMES) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!jobLockRepository.existsById(lockName)) {
+                        jobLockRepository.save(new JobLock(lockName));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // 其他节点同时启动并已插入
+                log.debug("任务锁记录已存在: lockName={}", lockName);
+            }
+        }
+    }
+    
+    /**
+     * 在当前事务中锁定指定记录，直到事务结束；其他节点（或本节点其他线程）锁定同一记录时等待
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(String lockName) {
+        if (jobLockRepository.findByLockNameForUpdate(lockName).isEmpty()) {
+            throw new IllegalStateException("任务锁记录不存在: " + lockName);
+        }
+        log.debug("已获取任务锁: lockName={}", lockName);
+    }
+}
@@ -0,0 +1,368 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.dto.LedgerEvent;
+import com.yuanzhi.finledger.exception.TooManyRequestsException;
+import com.yuanzhi.finledger.util.RoleConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 事件推送服务类
+ * 分录、支付、交易状态变化在事务提交后以 Server-Sent Events 推送给相关角色的在线用户，替代首页轮询。
+ * 每个连接有一个有界缓冲区，客户端读取慢时丢弃最旧的事件并在之后补发一条 overflow 事件提示客户端重新拉取；
+ * 发送由线程池按连接逐个执行，空闲连接不占用线程。servlet 的写是阻塞的，客户端停止读取时发送线程会卡在写上，
+ * 因此每次发送有截止时间：超时的连接被断开，卡住的线程由线程池临时补足，正常连接可用的线程数不受慢客户端影响
+ */
+@Slf4j
+@Service
+public class LedgerEventService {
+    
+    private static final Set<String> ENTRY_AUDIENCE = Set.of(RoleConstants.ACCOUNTANT, RoleConstants.MANAGER);
+    private static final Set<String> PAYMENT_AUDIENCE = Set.of(RoleConstants.MANAGER, RoleConstants.BOSS);
+    private static final Set<String> TRANSACTION_AUDIENCE =
+            Set.of(RoleConstants.ACCOUNTANT, RoleConstants.MANAGER, RoleConstants.BOSS);
+    
+    private final ThreadPoolTaskExecutor eventExecutor;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxConnections;
+    private final Duration timeout;
+    private final long sendTimeoutNanos;
+    private final int maxStalledSends;
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    
+    /**
+     * 因发送超时被临时补足的线程数，卡住的发送返回后归还
+     */
+    private final ReentrantLock poolLock = new ReentrantLock();
+    private int stalledSends;
+    
+    public LedgerEventService(@Qualifier("eventExecutor") ThreadPoolTaskExecutor eventExecutor,
+                              ObjectMapper objectMapper,
+                              @Value("${finledger.events.buffer-size:100}") int bufferSize,
+                              @Value("${finledger.events.max-connections:10000}") int maxConnections,
+                              @Value("${finledger.events.timeout:30m}") Duration timeout,
+                              @Value("${finledger.events.send-timeout:10s}") Duration sendTimeout,
+                              @Value("${finledger.events.max-stalled-sends:100}") int maxStalledSends) {
+        this.eventExecutor = eventExecutor;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxConnections = maxConnections;
+        this.timeout = timeout;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.maxStalledSends = maxStalledSends;
+    }
+    
+    /**
+     * 建立事件流连接
+     * 超时后连接关闭，浏览器 EventSource 会自动重连
+     */
+    public SseEmitter subscribe(String username, String role) {
+        if (subscribers.size() >= maxConnections) {
+            log.warn("事件推送连接数已达上限: max={}", maxConnections);
+            throw new TooManyRequestsException("事件推送连接数已达上限，请稍后重试");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, username, role);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        try {
+            // 在请求线程上发送首条消息：返回后由请求线程提交响应头，之后推送线程才写入，避免两个线程同时写响应头
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            throw new IllegalStateException("事件推送连接建立失败", e);
+        }
+        subscribers.add(subscriber);
+        log.debug("事件推送连接建立: username={}, role={}, connections={}", username, role, subscribers.size());
+        return emitter;
+    }
+    
+    /**
+     * 分录状态变化（会计、财务经理）
+     */
+    public void entryStatusChanged(Collection<Integer> ids, String status) {
+        publishAfterCommit("entry", ids, status, ENTRY_AUDIENCE);
+    }
+    
+    /**
+     * 支付状态变化（财务经理、老板）
+     */
+    public void paymentStatusChanged(Collection<Integer> ids, String status) {
+        publishAfterCommit("payment", ids, status, PAYMENT_AUDIENCE);
+    }
+    
+    /**
+     * 交易状态变化（所有角色）
+     */
+    public void transactionStatusChanged(Collection<Integer> ids, String status) {
+        publishAfterCommit("transaction", ids, status, TRANSACTION_AUDIENCE);
+    }
+    
+    public int getConnectionCount() {
+        return subscribers.size();
+    }
+    
+    /**
+     * 心跳：保持经过代理的空闲连接不被断开，同时清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${finledger.events.heartbeat:30s}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, SseEmitter.event().comment("ping"));
+        }
+    }
+    
+    /**
+     * 发送截止时间检查：单次发送超过 send-timeout 仍未返回的连接从订阅中移除、丢弃其缓冲区，不再向其推送，
+     * 并为卡住的线程临时扩大线程池；卡住的写由容器的写超时结束，之后在发送线程上关闭连接并归还补足的线程
+     */
+    @Scheduled(fixedDelayString = "${finledger.events.send-timeout:10s}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.lock.lock();
+            try {
+                if (subscriber.sendStartedAt == 0 || subscriber.closed
+                        || now - subscriber.sendStartedAt < sendTimeoutNanos) {
+                    continue;
+                }
+                subscriber.closed = true;
+                subscriber.buffer.clear();
+                subscriber.compensated = addStalledSend();
+            } finally {
+                subscriber.lock.unlock();
+            }
+            remove(subscriber);
+            log.warn("事件推送超时，断开连接: username={}, sendTimeout={}ms",
+                    subscriber.username, sendTimeoutNanos / 1_000_000);
+        }
+    }
+    
+    /**
+     * 事务提交后推送，回滚时不推送；没有事务时立即推送
+     */
+    private void publishAfterCommit(String entity, Collection<Integer> ids, String status, Set<String> audience) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        LedgerEvent event = new LedgerEvent(entity + "." + status.toLowerCase(Locale.ROOT), status,
+                List.copyOf(ids), LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event, audience);
+                }
+            });
+        } else {
+            publish(event, audience);
+        }
+    }
+    
+    private void publish(LedgerEvent event, Set<String> audience) {
+        String id = Long.toString(sequence.incrementAndGet());
+        // 只序列化一次，各连接发送同一段 JSON
+        String data = objectMapper.writeValueAsString(event);
+        for (Subscriber subscriber : subscribers) {
+            if (audience.contains(subscriber.role)) {
+                offer(subscriber, SseEmitter.event().id(id).name(event.getType()).data(data));
+            }
+        }
+    }
+    
+    /**
+     * 放入连接的缓冲区，缓冲区满时丢弃最旧的事件；连接没有进行中的发送任务时提交一个
+     */
+    private void offer(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        subscriber.lock.lock();
+        try {
+            if (subscriber.closed) {
+                return;
+            }
+            if (subscriber.buffer.size() >= bufferSize) {
+                subscriber.buffer.pollFirst();
+                subscriber.dropped++;
+            }
+            subscriber.buffer.addLast(event);
+            if (subscriber.draining) {
+                return;
+            }
+            subscriber.draining = true;
+        } finally {
+            subscriber.lock.unlock();
+        }
+        try {
+            eventExecutor.execute(() -> drain(subscriber));
+        } catch (TaskRejectedException e) {
+            // 事件留在缓冲区，下一个事件或心跳时再提交
+            log.warn("事件推送线程池已满: username={}", subscriber.username);
+            subscriber.lock.lock();
+            try {
+                subscriber.draining = false;
+            } finally {
+                subscriber.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * 依次发送缓冲区中的事件直到清空；发送失败说明客户端已断开，移除连接。
+     * 发送期间记录开始时间供截止时间检查；发送返回时连接已因超时被断开的，关闭连接并归还补足的线程
+     */
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            long dropped;
+            subscriber.lock.lock();
+            try {
+                event = subscriber.buffer.pollFirst();
+                if (event == null) {
+                    subscriber.draining = false;
+                    return;
+                }
+                dropped = subscriber.dropped;
+                subscriber.dropped = 0;
+                subscriber.sendStartedAt = System.nanoTime();
+            } finally {
+                subscriber.lock.unlock();
+            }
+            IOException error = null;
+            try {
+                if (dropped > 0) {
+                    subscriber.emitter.send(SseEmitter.event().name("overflow")
+                            .data(objectMapper.writeValueAsString(Map.of("dropped", dropped))));
+                }
+                subscriber.emitter.send(event);
+            } catch (IOException e) {
+                error = e;
+            } catch (IllegalStateException e) {
+                error = new IOException(e.getMessage(), e);
+            }
+            boolean timedOut;
+            boolean compensated;
+            subscriber.lock.lock();
+            try {
+                subscriber.sendStartedAt = 0;
+                timedOut = subscriber.closed;
+                compensated = subscriber.compensated;
+                subscriber.compensated = false;
+                if (error != null || timedOut) {
+                    subscriber.closed = true;
+                    subscriber.buffer.clear();
+                    subscriber.draining = false;
+                }
+            } finally {
+                subscriber.lock.unlock();
+            }
+            if (compensated) {
+                releaseStalledSend();
+            }
+            if (error != null) {
+                log.debug("事件推送失败，关闭连接: username={}, error={}", subscriber.username, error.getMessage());
+                subscriber.emitter.completeWithError(error);
+                remove(subscriber);
+                return;
+            }
+            if (timedOut) {
+                subscriber.emitter.complete();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 卡住的发送占用一个线程，临时增加一个线程补足；超过上限后不再补足，避免大量慢客户端无限制地创建线程
+     *
+     * @return 是否补足了线程（发送返回时据此归还）
+     */
+    private boolean addStalledSend() {
+        poolLock.lock();
+        try {
+            if (stalledSends >= maxStalledSends) {
+                log.warn("发送超时的连接过多，不再补足推送线程: stalled={}", stalledSends);
+                return false;
+            }
+            stalledSends++;
+            eventExecutor.setMaxPoolSize(eventExecutor.getMaxPoolSize() + 1);
+            eventExecutor.setCorePoolSize(eventExecutor.getCorePoolSize() + 1);
+            return true;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+    
+    private void releaseStalledSend() {
+        poolLock.lock();
+        try {
+            stalledSends--;
+            eventExecutor.setCorePoolSize(eventExecutor.getCorePoolSize() - 1);
+            eventExecutor.setMaxPoolSize(eventExecutor.getMaxPoolSize() - 1);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+    
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("事件推送连接关闭: username={}, connections={}", subscriber.username, subscribers.size());
+        }
+    }
+    
+    /**
+     * 一个事件流连接
+     */
+    private static final class Subscriber {
+        
+        private final SseEmitter emitter;
+        private final String username;
+        private final String role;
+        
+        /**
+         * 保护缓冲区及发送状态；不用 synchronized，避免虚拟线程在持锁时钉住载体线程
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private long dropped;
+        /**
+         * 进行中的发送的开始时间（System.nanoTime），没有发送时为 0
+         */
+        private long sendStartedAt;
+        /**
+         * 已断开，不再接收事件；compensated 表示因发送超时断开时补足了线程，发送线程返回时归还
+         */
+        private boolean closed;
+        private boolean compensated;
+        
+        private Subscriber(SseEmitter emitter, String username, String role) {
+            this.emitter = emitter;
+            this.username = username;
+            this.role = role;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.yuanzhi.finledger.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 记账热点路径指标
+ * 计时从业务方法开始，到所在事务提交或回滚为止（包含提交耗时），
+ * 以 outcome 标签区分 committed / rolled_back，发布直方图供 Prometheus 计算分位数
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerMetrics {
+    
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 开始记录一次分录过账，按拆分数分档打标签（避免标签基数过高）
+     */
+    public void startPosting(int splitCount) {
+        startUntilCompletion(Timer.builder("finledger.entry.post")
+                .description("分录过账耗时（含事务提交）")
+                .tag("splits", splitBucket(splitCount)));
+    }
+    
+    /**
+     * 开始记录一次状态流转
+     *
+     * @param entity 实体类型，如 entry / payment
+     * @param status 目标状态
+     */
+    public void startStatusChange(String entity, String status) {
+        startUntilCompletion(Timer.builder("finledger.status.change")
+                .description("状态流转耗时（含事务提交）")
+                .tag("entity", entity)
+                .tag("status", status == null ? "none" : status));
+    }
+    
+    private void startUntilCompletion(Timer.Builder builder) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        builder.publishPercentileHistogram();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sample.stop(builder.tag("outcome", "none").register(meterRegistry));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                String outcome = status == STATUS_COMMITTED ? "committed" : "rolled_back";
+                sample.stop(builder.tag("outcome", outcome).register(meterRegistry));
+            }
+        });
+    }
+    
+    static String splitBucket(int splitCount) {
+        if (splitCount <= 2) {
+            return "1-2";
+        } else if (splitCount <= 5) {
+            return "3-5";
+        } else if (splitCount <= 10) {
+            return "6-10";
+        }
+        return "11+";
+    }
+}
@@ -0,0 +1,145 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希服务类
+ * BCrypt 计算在独立的有界线程池中执行，不占满请求线程：
+ * 队列已满时立即拒绝，排队超过期限的任务不再计算，均以 429 返回
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+    
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration queueDeadline;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+    
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${finledger.password-hashing.threads:0}") int threads,
+                                  @Value("${finledger.password-hashing.queue-capacity:100}") int queueCapacity,
+                                  @Value("${finledger.password-hashing.queue-deadline:3s}") Duration queueDeadline) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueDeadline = queueDeadline;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        
+        this.encodeTimer = Timer.builder("finledger.password.hash")
+                .description("密码哈希耗时（不含排队）")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("finledger.password.hash")
+                .description("密码哈希耗时（不含排队）")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("finledger.password.hash.rejected")
+                .description("因队列已满或排队超时被拒绝的哈希请求数")
+                .register(meterRegistry);
+        meterRegistry.gauge("finledger.password.hash.queue.size", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("finledger.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+        log.info("密码哈希线程池已创建: threads={}, queueCapacity={}, queueDeadline={}",
+                poolSize, queueCapacity, queueDeadline);
+    }
+    
+    /**
+     * 计算密码哈希
+     */
+    public String encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+    
+    /**
+     * 校验密码
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+    
+    /**
+     * 已存储的哈希强度是否低于当前配置，需要重新哈希
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+    
+    private <T> T submit(Timer timer, Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        long deadlineNanos = queueDeadline.toNanos();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                // 排队已超过期限，请求方大概率已放弃，不再消耗 CPU
+                if (System.nanoTime() - enqueuedAt > deadlineNanos || future.isDone()) {
+                    future.completeExceptionally(new TimeoutException());
+                    return;
+                }
+                try {
+                    future.complete(timer.record(task));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("密码哈希队列已满，拒绝请求: queueSize={}", executor.getQueue().size());
+            throw new TooManyRequestsException("登录请求过多，请稍后重试");
+        }
+        
+        try {
+            // 等待排队期限加上一次哈希的余量
+            return future.get(deadlineNanos + TimeUnit.SECONDS.toNanos(5), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("登录请求过多，请稍后重试");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                rejectedCounter.increment();
+                log.warn("密码哈希排队超时: deadline={}", queueDeadline);
+                throw new TooManyRequestsException("登录请求过多，请稍后重试");
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TooManyRequestsException("请求已中断");
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
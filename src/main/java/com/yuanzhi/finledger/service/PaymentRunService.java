@@ -0,0 +1,520 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.config.WriteCommitTracker;
+import com.yuanzhi.finledger.dto.PaymentTransfer;
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.entity.PaymentRun;
+import com.yuanzhi.finledger.entity.User;
+import com.yuanzhi.finledger.exception.BusinessException;
+import com.yuanzhi.finledger.repository.PaymentRepository;
+import com.yuanzhi.finledger.repository.PaymentRunRepository;
+import com.yuanzhi.finledger.repository.UserRepository;
+import com.yuanzhi.finledger.util.PaymentStatus;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 付款批次服务类
+ * 将截止日期前的已审批支付按ID顺序分批标记为已支付，每批与检查点在同一事务中提交，中断后从检查点继续；
+ * 完成后按付款科目、收款方合并生成 ISO 20022 pain.001 付款文件，以 StAX 流式写出，内存占用与支付笔数无关。
+ * 多节点部署时，发起和重试在任务锁下串行执行；执行中的批次记录认领节点和心跳，每批锁定批次行并校验认领，
+ * 认领节点停止推进超过认领超时后由其他节点接手，同一批次不会被两个节点同时处理
+ */
+@Slf4j
+@Service
+public class PaymentRunService {
+    
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    private static final String PAIN_001_NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:pain.001.001.03";
+    
+    /**
+     * pain.001 名称、附言字段的最大长度
+     */
+    private static final int MAX_TEXT_LENGTH = 140;
+    
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    
+    /**
+     * 本进程标识，写入认领的批次；进程重启后为新标识，上次认领的批次在认领超时后重新接手
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    private final PaymentRunRepository paymentRunRepository;
+    private final PaymentRepository paymentRepository;
+    private final UserRepository userRepository;
+    private final AccountTreeCache accountTreeCache;
+    private final JobLockService jobLockService;
+    private final WriteCommitTracker writeCommitTracker;
+    private final LedgerEventService ledgerEventService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolTaskExecutor paymentRunExecutor;
+    private final int batchSize;
+    private final String debtorName;
+    private final String currency;
+    private final int fetchSize;
+    private final Duration claimTimeout;
+    
+    /**
+     * 本节点正在执行的付款批次
+     */
+    private final Set<Integer> activeRuns = ConcurrentHashMap.newKeySet();
+    
+    public PaymentRunService(PaymentRunRepository paymentRunRepository, PaymentRepository paymentRepository,
+                             UserRepository userRepository, AccountTreeCache accountTreeCache,
+                             JobLockService jobLockService, WriteCommitTracker writeCommitTracker,
+                             LedgerEventService ledgerEventService, EntityManager entityManager, PlatformTransactionManager transactionManager,
+                             @Qualifier("paymentRunExecutor") ThreadPoolTaskExecutor paymentRunExecutor,
+                             @Value("${finledger.payment-run.batch-size:1000}") int batchSize,
+                             @Value("${finledger.payment-run.debtor-name:FinLedger}") String debtorName,
+                             @Value("${finledger.payment-run.currency:CNY}") String currency,
+                             @Value("${finledger.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize,
+                             @Value("${finledger.payment-run.claim-timeout:2m}") Duration claimTimeout) {
+        this.paymentRunRepository = paymentRunRepository;
+        this.paymentRepository = paymentRepository;
+        this.userRepository = userRepository;
+        this.accountTreeCache = accountTreeCache;
+        this.jobLockService = jobLockService;
+        this.writeCommitTracker = writeCommitTracker;
+        this.ledgerEventService = ledgerEventService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.paymentRunExecutor = paymentRunExecutor;
+        this.batchSize = batchSize;
+        this.debtorName = debtorName;
+        this.currency = currency;
+        this.fetchSize = fetchSize;
+        this.claimTimeout = claimTimeout;
+    }
+    
+    /**
+     * 发起付款批次，后台执行，立即返回批次信息
+     * 同一时间只允许一个执行中的批次
+     */
+    public PaymentRun start(LocalDate cutoffDate, String username) {
+        LocalDate cutoff = cutoffDate != null ? cutoffDate : LocalDate.now();
+        Integer userId = userRepository.findByUsername(username).map(User::getId).orElse(null);
+        PaymentRun run = transactionTemplate.execute(status -> {
+            // 各节点的发起、重试在任务锁下串行执行，检查与插入之间不会插入其他执行中的批次
+            jobLockService.lock(JobLockService.PAYMENT_RUN);
+            if (paymentRunRepository.existsByStatus(STATUS_RUNNING)) {
+                throw new BusinessException("已有付款批次正在执行，请等待其完成");
+            }
+            PaymentRun created = new PaymentRun();
+            created.setCutoffDate(cutoff);
+            created.setStatus(STATUS_RUNNING);
+            created.setCreatedBy(userId);
+            created.setCreatedDate(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+            claim(created);
+            return paymentRunRepository.save(created);
+        });
+        log.info("付款批次已创建: runId={}, cutoffDate={}, createdBy={}", run.getId(), cutoff, username);
+        submit(run.getId());
+        return run;
+    }
+    
+    /**
+     * 继续执行中断或失败的付款批次，已支付的部分不会重复处理
+     * 其他节点正在执行（认领未超时）的批次不能继续
+     */
+    public PaymentRun resume(Integer runId) {
+        PaymentRun run = transactionTemplate.execute(status -> {
+            jobLockService.lock(JobLockService.PAYMENT_RUN);
+            PaymentRun current = lockRun(runId);
+            if (STATUS_COMPLETED.equals(current.getStatus())) {
+                throw new BusinessException("付款批次已完成");
+            }
+            if (STATUS_RUNNING.equals(current.getStatus()) && !claimable(current)) {
+                throw new BusinessException("付款批次正在其他节点执行");
+            }
+            if (STATUS_FAILED.equals(current.getStatus())) {
+                if (paymentRunRepository.existsByStatus(STATUS_RUNNING)) {
+                    throw new BusinessException("已有付款批次正在执行，请等待其完成");
+                }
+                current.setStatus(STATUS_RUNNING);
+                current.setMessage(null);
+                current.setFinishedDate(null);
+            }
+            claim(current);
+            return current;
+        });
+        log.info("继续执行付款批次: runId={}, lastPaymentId={}", runId, run.getLastPaymentId());
+        submit(runId);
+        return run;
+    }
+    
+    /**
+     * 接手无人推进的付款批次
+     * 启动时及每隔一个认领超时检查一次，执行节点退出或停止推进超过认领超时的批次由本节点认领后继续执行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${finledger.payment-run.claim-timeout:2m}",
+            initialDelayString = "${finledger.payment-run.claim-timeout:2m}")
+    public void resumeInterruptedRuns() {
+        List<PaymentRun> runs = transactionTemplate.execute(status -> paymentRunRepository.findByStatus(STATUS_RUNNING));
+        for (PaymentRun run : runs) {
+            if (activeRuns.contains(run.getId()) || !claimable(run)) {
+                continue;
+            }
+            // 锁定批次行后再次确认，多个节点同时检查时只有一个节点认领成功
+            boolean claimed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                PaymentRun current = lockRun(run.getId());
+                if (!STATUS_RUNNING.equals(current.getStatus()) || !claimable(current)) {
+                    return false;
+                }
+                claim(current);
+                return true;
+            }));
+            if (!claimed) {
+                continue;
+            }
+            log.warn("发现未完成的付款批次，继续执行: runId={}, lastPaymentId={}, previousOwner={}",
+                    run.getId(), run.getLastPaymentId(), run.getOwner());
+            try {
+                submit(run.getId());
+            } catch (BusinessException e) {
+                log.warn("付款批次继续执行失败: runId={}, error={}", run.getId(), e.getMessage());
+            }
+        }
+    }
+    
+    public PaymentRun getRun(Integer runId) {
+        return paymentRunRepository.findById(runId)
+                .orElseThrow(() -> new BusinessException("付款批次不存在"));
+    }
+    
+    public List<PaymentRun> getRuns() {
+        return paymentRunRepository.findAllByOrderByIdDesc();
+    }
+    
+    /**
+     * 获取已完成的付款批次，需在开始写出付款文件之前调用
+     */
+    public PaymentRun getCompletedRun(Integer runId) {
+        PaymentRun run = getRun(runId);
+        if (!STATUS_COMPLETED.equals(run.getStatus())) {
+            throw new BusinessException("付款批次尚未完成，不能生成付款文件");
+        }
+        if (run.getTransferCount() == 0) {
+            throw new BusinessException("付款批次没有支付记录");
+        }
+        return run;
+    }
+    
+    /**
+     * 锁定批次行，同一批次的认领与逐批处理互斥
+     */
+    private PaymentRun lockRun(Integer runId) {
+        return paymentRunRepository.findByIdForUpdate(runId)
+                .orElseThrow(() -> new BusinessException("付款批次不存在"));
+    }
+    
+    /**
+     * 批次未被认领、由本节点认领或认领节点超时未推进时可以认领
+     */
+    private boolean claimable(PaymentRun run) {
+        return run.getOwner() == null || nodeId.equals(run.getOwner()) || run.getHeartbeat() == null
+                || run.getHeartbeat().plus(claimTimeout).isBefore(LocalDateTime.now());
+    }
+    
+    private void claim(PaymentRun run) {
+        run.setOwner(nodeId);
+        run.setHeartbeat(LocalDateTime.now());
+    }
+    
+    /**
+     * 确认批次仍在执行且由本节点认领，否则停止处理
+     */
+    private void checkClaim(PaymentRun run) {
+        if (!STATUS_RUNNING.equals(run.getStatus()) || !nodeId.equals(run.getOwner())) {
+            throw new ClaimLostException();
+        }
+    }
+    
+    private void submit(Integer runId) {
+        if (!activeRuns.add(runId)) {
+            throw new BusinessException("付款批次正在执行");
+        }
+        try {
+            paymentRunExecutor.execute(() -> {
+                try {
+                    execute(runId);
+                } finally {
+                    activeRuns.remove(runId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            activeRuns.remove(runId);
+            throw new BusinessException("付款批次任务过多，请稍后继续执行该批次");
+        }
+    }
+    
+    private void execute(Integer runId) {
+        long start = System.currentTimeMillis();
+        try {
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> processBatch(runId)))) {
+                // 逐批处理直到没有待支付记录
+            }
+            PaymentRun run = transactionTemplate.execute(status -> complete(runId));
+            log.info("付款批次完成: runId={}, payments={}, transfers={}, totalAmount={}, elapsed={}ms",
+                    runId, run.getPaymentCount(), run.getTransferCount(), run.getTotalAmount(),
+                    System.currentTimeMillis() - start);
+        } catch (ClaimLostException | ObjectOptimisticLockingFailureException e) {
+            log.warn("付款批次已由其他节点接手，本节点停止执行: runId={}", runId);
+        } catch (Exception e) {
+            log.error("付款批次执行失败: runId={}", runId, e);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    PaymentRun run = lockRun(runId);
+                    if (!nodeId.equals(run.getOwner())) {
+                        return;
+                    }
+                    run.setStatus(STATUS_FAILED);
+                    String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    run.setMessage(message.length() > 255 ? message.substring(0, 255) : message);
+                    run.setFinishedDate(LocalDateTime.now());
+                });
+            } catch (Exception statusError) {
+                log.error("付款批次状态更新失败，重启后将继续执行: runId={}", runId, statusError);
+            }
+        }
+    }
+    
+    /**
+     * 处理一批：从检查点之后取一批已审批支付标记为已支付，并在同一事务中推进检查点；状态变化在本批提交后推送
+     *
+     * @return 是否处理了支付（false 表示已全部处理完）
+     */
+    private boolean processBatch(Integer runId) {
+        PaymentRun run = lockRun(runId);
+        checkClaim(run);
+        List<Integer> ids = paymentRepository.findIdsForRun(PaymentStatus.APPROVED,
+                run.getCutoffDate().plusDays(1).atStartOfDay(), run.getLastPaymentId(),
+                PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return false;
+        }
+        // 条件更新：批次执行期间被单独完成的支付不会重复支付
+        int updated = paymentRepository.transitionPaidInRun(ids, PaymentStatus.sourcesOf(PaymentStatus.PAID),
+                PaymentStatus.PAID, run.getCreatedDate(), runId);
+        writeCommitTracker.markWritten(WriteCommitTracker.PAYMENTS);
+        // 本批提交后推送状态变化；有支付在选出后被单独处理时，只推送实际由本批次支付的记录
+        List<Integer> paidIds = updated == ids.size() ? ids : paymentRepository.findIdsInRun(ids, runId);
+        ledgerEventService.paymentStatusChanged(paidIds, PaymentStatus.PAID);
+        run.setLastPaymentId(ids.get(ids.size() - 1));
+        run.setPaymentCount(run.getPaymentCount() + updated);
+        run.setHeartbeat(LocalDateTime.now());
+        paymentRunRepository.save(run);
+        log.debug("付款批次处理一批: runId={}, selected={}, paid={}, lastPaymentId={}",
+                runId, ids.size(), updated, run.getLastPaymentId());
+        return true;
+    }
+    
+    /**
+     * 完成批次：按数据库中实际归属本批次的支付汇总笔数与金额
+     */
+    private PaymentRun complete(Integer runId) {
+        PaymentRun run = lockRun(runId);
+        checkClaim(run);
+        Object[] summary = paymentRepository.summarizeRun(runId).get(0);
+        run.setPaymentCount(((Number) summary[0]).intValue());
+        run.setTotalAmount(new BigDecimal(summary[1].toString()).setScale(2, RoundingMode.HALF_UP));
+        run.setTransferCount(((Number) summary[2]).intValue());
+        run.setStatus(STATUS_COMPLETED);
+        run.setFinishedDate(LocalDateTime.now());
+        return paymentRunRepository.save(run);
+    }
+    
+    /**
+     * 写出付款文件（pain.001.001.03）
+     * 每个付款科目一个 PmtInf，同一科目下每个收款方一笔 CdtTrfTxInf；内容只取决于批次数据，可重复下载
+     */
+    public void writeFile(PaymentRun run, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        OutputStream target = new BufferedOutputStream(out, 64 * 1024);
+        try {
+            Long transfers = readOnlyTransaction.execute(status -> write(run, target));
+            target.flush();
+            log.info("付款文件已生成: runId={}, transfers={}, elapsed={}ms",
+                    run.getId(), transfers, System.currentTimeMillis() - start);
+        } catch (UncheckedIOException e) {
+            log.warn("付款文件下载中断: runId={}, error={}", run.getId(), e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+    
+    private long write(PaymentRun run, OutputStream out) {
+        // 流式读取期间不能在同一连接上执行其他查询，先取出科目信息
+        Map<Integer, Account> accounts = new HashMap<>();
+        accountTreeCache.getAccounts().forEach(account -> accounts.put(account.getId(), account));
+        
+        long count = 0;
+        try (Stream<PaymentTransfer> rows = entityManager.createQuery(
+                        "SELECT new com.yuanzhi.finledger.dto.PaymentTransfer(p.accountID, t.supplierClient, " +
+                                "SUM(p.amount), COUNT(p)) FROM Payment p LEFT JOIN p.transaction t " +
+                                "WHERE p.paymentRunID = :runId GROUP BY p.accountID, t.supplierClient " +
+                                "ORDER BY p.accountID, t.supplierClient", PaymentTransfer.class)
+                .setParameter("runId", run.getId())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            XMLStreamWriter xml = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeStartElement("Document");
+            xml.writeDefaultNamespace(PAIN_001_NAMESPACE);
+            xml.writeStartElement("CstmrCdtTrfInitn");
+            
+            xml.writeStartElement("GrpHdr");
+            element(xml, "MsgId", "FINLEDGER-RUN-" + run.getId());
+            element(xml, "CreDtTm", run.getCreatedDate().format(DATE_TIME_FORMAT));
+            element(xml, "NbOfTxs", String.valueOf(run.getTransferCount()));
+            element(xml, "CtrlSum", amount(run.getTotalAmount()));
+            xml.writeStartElement("InitgPty");
+            element(xml, "Nm", text(debtorName));
+            xml.writeEndElement();
+            xml.writeEndElement();
+            
+            Integer currentAccountId = null;
+            Iterator<PaymentTransfer> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                PaymentTransfer transfer = iterator.next();
+                if (currentAccountId == null || !currentAccountId.equals(transfer.getAccountId())) {
+                    if (currentAccountId != null) {
+                        xml.writeEndElement();
+                    }
+                    currentAccountId = transfer.getAccountId();
+                    writePaymentInfo(xml, run, accounts.get(currentAccountId), currentAccountId);
+                }
+                count++;
+                writeTransfer(xml, run, transfer, count);
+            }
+            if (currentAccountId != null) {
+                xml.writeEndElement();
+            }
+            
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new UncheckedIOException(new IOException("写出付款文件失败", e));
+        }
+        return count;
+    }
+    
+    /**
+     * 写出 PmtInf 开头（付款方信息），由调用方在该科目的转账写完后关闭
+     */
+    private void writePaymentInfo(XMLStreamWriter xml, PaymentRun run, Account account, Integer accountId)
+            throws XMLStreamException {
+        xml.writeStartElement("PmtInf");
+        element(xml, "PmtInfId", "R" + run.getId() + "-A" + accountId);
+        element(xml, "PmtMtd", "TRF");
+        element(xml, "ReqdExctnDt", run.getCreatedDate().toLocalDate().toString());
+        xml.writeStartElement("Dbtr");
+        element(xml, "Nm", text(debtorName));
+        xml.writeEndElement();
+        xml.writeStartElement("DbtrAcct");
+        xml.writeStartElement("Id");
+        xml.writeStartElement("Othr");
+        element(xml, "Id", account != null ? account.getCode() : String.valueOf(accountId));
+        xml.writeEndElement();
+        xml.writeEndElement();
+        element(xml, "Ccy", account != null && account.getCurrency() != null ? account.getCurrency() : currency);
+        if (account != null && account.getName() != null) {
+            element(xml, "Nm", text(account.getName()));
+        }
+        xml.writeEndElement();
+        xml.writeStartElement("DbtrAgt");
+        xml.writeStartElement("FinInstnId");
+        xml.writeStartElement("Othr");
+        element(xml, "Id", "NOTPROVIDED");
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+    
+    private void writeTransfer(XMLStreamWriter xml, PaymentRun run, PaymentTransfer transfer, long sequence)
+            throws XMLStreamException {
+        xml.writeStartElement("CdtTrfTxInf");
+        xml.writeStartElement("PmtId");
+        element(xml, "EndToEndId", "R" + run.getId() + "-" + sequence);
+        xml.writeEndElement();
+        xml.writeStartElement("Amt");
+        xml.writeStartElement("InstdAmt");
+        xml.writeAttribute("Ccy", currency);
+        xml.writeCharacters(amount(transfer.getAmount()));
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeStartElement("Cdtr");
+        element(xml, "Nm", text(Objects.requireNonNullElse(transfer.getCounterparty(), "未知收款方")));
+        xml.writeEndElement();
+        xml.writeStartElement("RmtInf");
+        element(xml, "Ustrd", "付款批次" + run.getId() + "，合并支付" + transfer.getPaymentCount() + "笔");
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+    
+    private static void element(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+        xml.writeStartElement(name);
+        xml.writeCharacters(value);
+        xml.writeEndElement();
+    }
+    
+    private static String amount(BigDecimal value) {
+        return (value != null ? value : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+    
+    private static String text(String value) {
+        return value.length() > MAX_TEXT_LENGTH ? value.substring(0, MAX_TEXT_LENGTH) : value;
+    }
+    
+    /**
+     * 批次已由其他节点接手或已结束
+     */
+    private static class ClaimLostException extends RuntimeException {
+    }
+}
@@ -1,15 +1,31 @@
 package com.yuanzhi.finledger.service;
 
+import com.yuanzhi.finledger.config.WriteCommitTracker;
+import com.yuanzhi.finledger.dto.BulkStatusRequest;
+import com.yuanzhi.finledger.dto.BulkStatusResult;
+import com.yuanzhi.finledger.dto.CursorPage;
+import com.yuanzhi.finledger.dto.PaymentView;
+import com.yuanzhi.finledger.entity.Account;
 import com.yuanzhi.finledger.entity.Payment;
 import com.yuanzhi.finledger.exception.BusinessException;
 import com.yuanzhi.finledger.repository.PaymentRepository;
+import com.yuanzhi.finledger.util.KeysetPagination;
+import com.yuanzhi.finledger.util.PaymentStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 支付服务类
@@ -20,7 +36,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PaymentService {
     
+    /**
+     * 单次批量审批的最大支付数
+     */
+    private static final int BULK_MAX_PAYMENTS = 1000;
+    
     private final PaymentRepository paymentRepository;
+    private final LedgerMetrics ledgerMetrics;
+    private final AccountTreeCache accountTreeCache;
+    private final LedgerEventService ledgerEventService;
+    private final WriteCommitTracker writeCommitTracker;
     
     /**
      * 创建支付记录
@@ -33,15 +58,25 @@ public class PaymentService {
         if (payment.getPaymentDate() == null) {
             payment.setPaymentDate(LocalDateTime.now());
         }
+        // 审批结果只能经状态流转产生，新建支付一律从待审批开始
+        if (payment.getStatus() == null) {
+            payment.setStatus(PaymentStatus.PENDING);
+        }
+        if (!PaymentStatus.PENDING.equals(payment.getStatus())) {
+            throw new BusinessException("新建支付的状态只能为待审批");
+        }
         
         Payment savedPayment = paymentRepository.save(payment);
+        writeCommitTracker.markWritten(WriteCommitTracker.PAYMENTS);
         log.info("支付记录创建成功: paymentId={}", savedPayment.getId());
+        ledgerEventService.paymentStatusChanged(List.of(savedPayment.getId()), PaymentStatus.PENDING);
         return savedPayment;
     }
     
     /**
      * 根据ID获取支付记录
      */
+    @Transactional(readOnly = true)
     public Payment getPaymentById(Integer id) {
         log.debug("查询支付记录: paymentId={}", id);
         return paymentRepository.findById(id)
@@ -54,14 +89,33 @@ public class PaymentService {
     /**
      * 获取所有支付记录
      */
+    @Transactional(readOnly = true)
     public List<Payment> getAllPayments() {
         log.debug("查询所有支付记录");
         return paymentRepository.findAll();
     }
     
+    /**
+     * 游标分页查询支付记录
+     * 支付日期在付款完成时会被改写，因此按自增 id 倒序翻页；可按状态、审批人、支付日期范围过滤
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Payment> getPaymentPage(String status, Integer approverId, LocalDateTime startDate,
+                                              LocalDateTime endDate, String cursor, Integer size) {
+        log.debug("分页查询支付记录: status={}, approverId={}, startDate={}, endDate={}, cursor={}, size={}",
+                status, approverId, startDate, endDate, cursor, size);
+        Specification<Payment> filters = Specification.allOf(
+                KeysetPagination.equal("status", status),
+                KeysetPagination.equal("approvedBy", approverId),
+                KeysetPagination.between("paymentDate", startDate, endDate));
+        return KeysetPagination.fetch(paymentRepository, filters, null, cursor, size,
+                Payment::getPaymentDate, Payment::getId);
+    }
+    
     /**
      * 获取待审批支付
      */
+    @Transactional(readOnly = true)
     public List<Payment> getPendingPayments() {
         log.debug("查询待审批支付");
         return paymentRepository.findPendingPayments();
@@ -70,21 +124,42 @@ public class PaymentService {
     /**
      * 根据交易ID获取支付记录
      */
+    @Transactional(readOnly = true)
     public List<Payment> getPaymentsByTransaction(Integer transactionId) {
         log.debug("根据交易ID查询支付记录: transactionId={}", transactionId);
         return paymentRepository.findByTransactionID(transactionId);
     }
     
+    /**
+     * 转换为支付视图
+     * 不访问延迟加载的关联对象，科目编码和名称取自科目树缓存
+     */
+    public List<PaymentView> toPaymentViews(List<Payment> payments) {
+        List<PaymentView> views = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            views.add(toPaymentView(payment));
+        }
+        return views;
+    }
+    
+    public PaymentView toPaymentView(Payment payment) {
+        Account account = accountTreeCache.getAccount(payment.getAccountID());
+        return new PaymentView(payment.getId(), payment.getTransactionID(), payment.getAccountID(),
+                account != null ? account.getCode() : null, account != null ? account.getName() : null,
+                payment.getAmount(), payment.getPaymentDate(), payment.getStatus(), payment.getApprovedBy());
+    }
+    
     /**
      * 审批支付
+     * 状态流转均为一条条件 UPDATE，两位审批人同时审批、拒绝同一笔支付时只有先提交的一方生效
      */
     @Transactional
     public Payment approvePayment(Integer id, Integer approverId) {
         log.info("审批支付: paymentId={}, approverId={}", id, approverId);
-        Payment payment = getPaymentById(id);
-        payment.setStatus("APPROVED");
-        payment.setApprovedBy(approverId);
-        Payment approvedPayment = paymentRepository.save(payment);
+        ledgerMetrics.startStatusChange("payment", PaymentStatus.APPROVED);
+        int updated = paymentRepository.transitionReview(id, PaymentStatus.sourcesOf(PaymentStatus.APPROVED),
+                PaymentStatus.APPROVED, approverId);
+        Payment approvedPayment = afterTransition(id, updated, PaymentStatus.APPROVED);
         log.info("支付审批成功: paymentId={}", id);
         return approvedPayment;
     }
@@ -95,28 +170,110 @@ public class PaymentService {
     @Transactional
     public Payment rejectPayment(Integer id, Integer approverId) {
         log.info("拒绝支付: paymentId={}, approverId={}", id, approverId);
-        Payment payment = getPaymentById(id);
-        payment.setStatus("REJECTED");
-        payment.setApprovedBy(approverId);
-        Payment rejectedPayment = paymentRepository.save(payment);
+        ledgerMetrics.startStatusChange("payment", PaymentStatus.REJECTED);
+        int updated = paymentRepository.transitionReview(id, PaymentStatus.sourcesOf(PaymentStatus.REJECTED),
+                PaymentStatus.REJECTED, approverId);
+        Payment rejectedPayment = afterTransition(id, updated, PaymentStatus.REJECTED);
         log.info("支付已拒绝: paymentId={}", id);
         return rejectedPayment;
     }
     
+    /**
+     * 批量审批或拒绝支付
+     * 在一个事务内先按ID顺序锁定待审批的支付，再用一条条件 UPDATE 写入审批结果；
+     * 不可审批的支付不影响其他支付，返回每笔支付的处理结果
+     */
+    @Transactional
+    public List<BulkStatusResult> reviewPayments(BulkStatusRequest request, Integer approverId) {
+        String status = request.getStatus() != null ? request.getStatus() : PaymentStatus.APPROVED;
+        log.info("批量审批支付: status={}, approverId={}", status, approverId);
+        if (!PaymentStatus.APPROVED.equals(status) && !PaymentStatus.REJECTED.equals(status)) {
+            throw new BusinessException("批量审批的目标状态只能为 APPROVED 或 REJECTED");
+        }
+        List<String> sources = PaymentStatus.sourcesOf(status);
+        List<Integer> ids = resolveBulkIds(request, sources);
+        
+        Set<Integer> changedIds = new HashSet<>();
+        if (!ids.isEmpty()) {
+            paymentRepository.findByIdInAndStatusInForUpdate(ids, sources)
+                    .forEach(payment -> changedIds.add(payment.getId()));
+        }
+        if (!changedIds.isEmpty()) {
+            paymentRepository.transitionReviews(changedIds, sources, status, approverId);
+            writeCommitTracker.markWritten(WriteCommitTracker.PAYMENTS);
+            ledgerEventService.paymentStatusChanged(changedIds, status);
+        }
+        Map<Integer, String> currentStatuses = new HashMap<>();
+        for (Payment payment : paymentRepository.findAllById(
+                ids.stream().filter(id -> !changedIds.contains(id)).toList())) {
+            currentStatuses.put(payment.getId(), payment.getStatus());
+        }
+        
+        List<BulkStatusResult> results = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            if (changedIds.contains(id)) {
+                results.add(BulkStatusResult.success(id, status));
+            } else if (!currentStatuses.containsKey(id)) {
+                results.add(BulkStatusResult.failure(id, null, "支付记录不存在"));
+            } else {
+                String current = currentStatuses.get(id);
+                results.add(BulkStatusResult.failure(id, current, "支付当前状态为 " + current + "，不能变更为 " + status));
+            }
+        }
+        log.info("批量审批支付完成: status={}, total={}, success={}", status, ids.size(), changedIds.size());
+        return results;
+    }
+    
+    /**
+     * 确定批量审批的支付ID，未指定ID时按支付日期范围选取待审批支付
+     */
+    private List<Integer> resolveBulkIds(BulkStatusRequest request, List<String> sources) {
+        if (request.getIds() != null) {
+            List<Integer> ids = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+            if (ids.size() > BULK_MAX_PAYMENTS) {
+                throw new BusinessException("单次批量审批不能超过" + BULK_MAX_PAYMENTS + "笔支付");
+            }
+            return ids;
+        }
+        Specification<Payment> filters = Specification.allOf(
+                (root, query, cb) -> root.get("status").in(sources),
+                KeysetPagination.between("paymentDate",
+                        request.getStartDate() != null ? request.getStartDate().atStartOfDay() : null,
+                        request.getEndDate() != null ? request.getEndDate().plusDays(1).atStartOfDay() : null));
+        return paymentRepository.findBy(filters, query -> query.sortBy(Sort.by("id")).limit(BULK_MAX_PAYMENTS).all())
+                .stream()
+                .map(Payment::getId)
+                .toList();
+    }
+    
     /**
      * 完成支付
      */
     @Transactional
     public Payment completePayment(Integer id) {
         log.info("完成支付: paymentId={}", id);
-        Payment payment = getPaymentById(id);
-        payment.setStatus("PAID");
-        payment.setPaymentDate(LocalDateTime.now());
-        Payment completedPayment = paymentRepository.save(payment);
+        ledgerMetrics.startStatusChange("payment", PaymentStatus.PAID);
+        int updated = paymentRepository.transitionPaid(id, PaymentStatus.sourcesOf(PaymentStatus.PAID),
+                PaymentStatus.PAID, LocalDateTime.now());
+        Payment completedPayment = afterTransition(id, updated, PaymentStatus.PAID);
         log.info("支付完成: paymentId={}", id);
         return completedPayment;
     }
     
+    /**
+     * 状态流转后读取最新记录；未生效时区分支付不存在与非法流转
+     */
+    private Payment afterTransition(Integer id, int updated, String status) {
+        Payment payment = getPaymentById(id);
+        if (updated == 0) {
+            log.warn("支付状态流转被拒绝: paymentId={}, from={}, to={}", id, payment.getStatus(), status);
+            throw new BusinessException("支付当前状态为 " + payment.getStatus() + "，不能变更为 " + status);
+        }
+        writeCommitTracker.markWritten(WriteCommitTracker.PAYMENTS);
+        ledgerEventService.paymentStatusChanged(List.of(id), status);
+        return payment;
+    }
+    
     /**
      * 删除支付记录
      */
@@ -125,6 +282,7 @@ public class PaymentService {
         log.info("删除支付记录: paymentId={}", id);
         getPaymentById(id); // 验证存在
         paymentRepository.deleteById(id);
+        writeCommitTracker.markWritten(WriteCommitTracker.PAYMENTS);
         log.info("支付记录删除成功: paymentId={}", id);
     }
 }
@@ -0,0 +1,255 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.dto.AccountAmount;
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.entity.AccountPeriodBalance;
+import com.yuanzhi.finledger.entity.PeriodCloseRequest;
+import com.yuanzhi.finledger.exception.BusinessException;
+import com.yuanzhi.finledger.repository.AccountPeriodBalanceRepository;
+import com.yuanzhi.finledger.repository.AccountRepository;
+import com.yuanzhi.finledger.repository.PeriodCloseRequestRepository;
+import com.yuanzhi.finledger.repository.SplitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 期末结账服务类
+ * 按会计期间（自然月）写入科目余额快照，任意时点的余额 = 最近快照 + 快照之后的发生额
+ */
+@Slf4j
+@Service
+public class PeriodCloseService {
+    
+    private final AccountPeriodBalanceRepository periodBalanceRepository;
+    private final AccountRepository accountRepository;
+    private final SplitRepository splitRepository;
+    private final PeriodCloseRequestRepository periodCloseRequestRepository;
+    private final JobLockService jobLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor periodCloseExecutor;
+    
+    public PeriodCloseService(AccountPeriodBalanceRepository periodBalanceRepository,
+                              AccountRepository accountRepository, SplitRepository splitRepository,
+                              PeriodCloseRequestRepository periodCloseRequestRepository,
+                              JobLockService jobLockService, PlatformTransactionManager transactionManager,
+                              @Qualifier("periodCloseExecutor") ThreadPoolTaskExecutor periodCloseExecutor) {
+        this.periodBalanceRepository = periodBalanceRepository;
+        this.accountRepository = accountRepository;
+        this.splitRepository = splitRepository;
+        this.periodCloseRequestRepository = periodCloseRequestRepository;
+        this.jobLockService = jobLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.periodCloseExecutor = periodCloseExecutor;
+    }
+    
+    /**
+     * 每月初自动结上一个月
+     * 各节点都会触发，先锁定结账任务锁再检查是否已结账，后获得锁的节点看到已结账后跳过
+     */
+    @Scheduled(cron = "${finledger.period-close.cron:0 10 0 1 * *}")
+    @Transactional
+    public void closePreviousPeriod() {
+        jobLockService.lock(JobLockService.PERIOD_CLOSE);
+        YearMonth previous = YearMonth.now().minusMonths(1);
+        if (periodBalanceRepository.existsByPeriod(previous.toString())) {
+            log.debug("期间已结账，跳过: period={}", previous);
+            return;
+        }
+        closePeriod(previous);
+    }
+    
+    /**
+     * 结账
+     * 重新计算并写入指定期间所有科目的期初、本期、期末金额；同一时间只有一个节点在结账
+     */
+    @Transactional
+    public List<AccountPeriodBalance> closePeriod(YearMonth period) {
+        log.info("期末结账: period={}", period);
+        LocalDateTime periodStart = period.atDay(1).atStartOfDay();
+        LocalDateTime periodEnd = period.plusMonths(1).atDay(1).atStartOfDay();
+        if (periodEnd.isAfter(LocalDateTime.now())) {
+            throw new BusinessException("会计期间尚未结束，无法结账");
+        }
+        
+        jobLockService.lock(JobLockService.PERIOD_CLOSE);
+        periodBalanceRepository.deleteByPeriod(period.toString());
+        Map<Integer, AccountAmount> opening = getBalancesAsOf(periodStart);
+        Map<Integer, AccountAmount> activity = toMap(splitRepository.sumApprovedAmountsBetween(periodStart, periodEnd));
+        
+        LocalDateTime closedAt = LocalDateTime.now();
+        List<AccountPeriodBalance> snapshots = new ArrayList<>();
+        for (Account account : accountRepository.findAll()) {
+            AccountAmount open = opening.get(account.getId());
+            AccountAmount current = activity.get(account.getId());
+            AccountPeriodBalance snapshot = new AccountPeriodBalance();
+            snapshot.setAccountID(account.getId());
+            snapshot.setPeriod(period.toString());
+            snapshot.setPeriodStart(periodStart);
+            snapshot.setPeriodEnd(periodEnd);
+            snapshot.setOpeningDebit(debitOf(open));
+            snapshot.setOpeningCredit(creditOf(open));
+            snapshot.setPeriodDebit(debitOf(current));
+            snapshot.setPeriodCredit(creditOf(current));
+            snapshot.setClosingDebit(debitOf(open).add(debitOf(current)));
+            snapshot.setClosingCredit(creditOf(open).add(creditOf(current)));
+            snapshot.setClosedAt(closedAt);
+            snapshots.add(snapshot);
+        }
+        List<AccountPeriodBalance> saved = periodBalanceRepository.saveAll(snapshots);
+        log.info("期末结账完成: period={}, accountCount={}", period, saved.size());
+        return saved;
+    }
+    
+    /**
+     * 获取已结账期间的快照
+     */
+    public List<AccountPeriodBalance> getPeriodBalances(YearMonth period) {
+        log.debug("查询期末余额快照: period={}", period);
+        return periodBalanceRepository.findByPeriod(period.toString());
+    }
+    
+    /**
+     * 获取所有已结账期间
+     */
+    public List<String> getClosedPeriods() {
+        log.debug("查询已结账期间");
+        return periodBalanceRepository.findClosedPeriods();
+    }
+    
+    /**
+     * 截至指定时间（不含）各科目的累计借贷金额
+     * 取最近一个已结账期间的期末快照，再叠加快照之后的发生额，扫描范围不超过未结账的期间
+     */
+    public Map<Integer, AccountAmount> getBalancesAsOf(LocalDateTime time) {
+        String latestPeriod = periodBalanceRepository.findLatestClosedPeriodBefore(time);
+        if (latestPeriod == null) {
+            return toMap(splitRepository.sumApprovedAmountsBefore(time));
+        }
+        
+        Map<Integer, AccountAmount> balances = new HashMap<>();
+        LocalDateTime snapshotEnd = null;
+        for (AccountPeriodBalance snapshot : periodBalanceRepository.findByPeriod(latestPeriod)) {
+            balances.put(snapshot.getAccountID(), new AccountAmount(snapshot.getAccountID(),
+                    snapshot.getClosingDebit(), snapshot.getClosingCredit()));
+            snapshotEnd = snapshot.getPeriodEnd();
+        }
+        if (snapshotEnd != null && snapshotEnd.isBefore(time)) {
+            for (AccountAmount delta : splitRepository.sumApprovedAmountsBetween(snapshotEnd, time)) {
+                balances.merge(delta.getAccountId(), delta, (base, add) -> new AccountAmount(base.getAccountId(),
+                        debitOf(base).add(debitOf(add)), creditOf(base).add(creditOf(add))));
+            }
+        }
+        log.debug("按快照计算余额: asOf={}, snapshotPeriod={}", time, latestPeriod);
+        return balances;
+    }
+    
+    /**
+     * 已结账期间内的分录状态发生变化时，在当前事务中记录待重新结账的期间
+     * 不在业务事务中重算（避免持有科目锁和结账任务锁重算快照），提交后由后台任务重算；回滚时请求随之撤销
+     */
+    @Transactional
+    public void invalidateFrom(LocalDateTime changedAt) {
+        if (changedAt == null) {
+            return;
+        }
+        String period = YearMonth.from(changedAt).toString();
+        if (periodBalanceRepository.findClosedPeriodsFrom(period).isEmpty()) {
+            return;
+        }
+        periodCloseRequestRepository.save(new PeriodCloseRequest(null, period, LocalDateTime.now()));
+        log.info("已结账期间发生变动，提交后重新结账: period={}", period);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    periodCloseExecutor.execute(PeriodCloseService.this::recloseRequestedPeriods);
+                }
+            });
+        } else {
+            periodCloseExecutor.execute(this::recloseRequestedPeriods);
+        }
+    }
+    
+    /**
+     * 定时处理遗留的重新结账请求（提交后节点宕机、或其他节点提交的请求）
+     */
+    @Scheduled(fixedDelayString = "${finledger.period-close.reclose-interval:1m}")
+    public void recloseRequested() {
+        periodCloseExecutor.execute(this::recloseRequestedPeriods);
+    }
+    
+    /**
+     * 重新结账
+     * 在结账任务锁下读取请求，从最早的变动期间起按顺序重算已结账期间，完成后删除已处理的请求；
+     * 删除按读到的ID进行，重算期间新提交的请求留给下一次处理
+     */
+    private void recloseRequestedPeriods() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 没有请求时不占用结账任务锁；在读写事务中查询，读到主库上刚提交的请求
+                if (periodCloseRequestRepository.count() == 0) {
+                    return;
+                }
+                jobLockService.lock(JobLockService.PERIOD_CLOSE);
+                List<PeriodCloseRequest> requests = periodCloseRequestRepository.findAllByOrderById();
+                if (requests.isEmpty()) {
+                    return;
+                }
+                String from = requests.stream().map(PeriodCloseRequest::getPeriod).min(String::compareTo).get();
+                List<String> affected = periodBalanceRepository.findClosedPeriodsFrom(from);
+                log.info("重新结账: requestCount={}, periods={}", requests.size(), affected);
+                // 按期间顺序重算，后一期的期初依赖前一期的期末
+                for (String period : affected) {
+                    closePeriod(YearMonth.parse(period));
+                }
+                periodCloseRequestRepository.deleteAllInBatch(requests);
+            });
+        } catch (Exception e) {
+            log.error("重新结账失败，请求保留到下次重试", e);
+        }
+    }
+    
+    /**
+     * 解析会计期间参数
+     */
+    public static YearMonth parsePeriod(String period) {
+        try {
+            return YearMonth.parse(period);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("会计期间格式错误，应为 yyyy-MM");
+        }
+    }
+    
+    private Map<Integer, AccountAmount> toMap(List<AccountAmount> amounts) {
+        Map<Integer, AccountAmount> map = new HashMap<>();
+        for (AccountAmount amount : amounts) {
+            map.put(amount.getAccountId(), amount);
+        }
+        return map;
+    }
+    
+    private BigDecimal debitOf(AccountAmount amount) {
+        return amount != null && amount.getDebitAmount() != null ? amount.getDebitAmount() : BigDecimal.ZERO;
+    }
+    
+    private BigDecimal creditOf(AccountAmount amount) {
+        return amount != null && amount.getCreditAmount() != null ? amount.getCreditAmount() : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,233 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.dto.AccountAmount;
+import com.yuanzhi.finledger.dto.AgingLine;
+import com.yuanzhi.finledger.dto.AgingReport;
+import com.yuanzhi.finledger.dto.BalanceSheetReport;
+import com.yuanzhi.finledger.dto.IncomeStatementReport;
+import com.yuanzhi.finledger.dto.ReportLine;
+import com.yuanzhi.finledger.dto.TrialBalanceReport;
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.exception.BusinessException;
+import com.yuanzhi.finledger.repository.SplitRepository;
+import com.yuanzhi.finledger.repository.TransactionRepository;
+import com.yuanzhi.finledger.util.AccountCategory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 报表服务类
+ * 在数据库中按科目汇总已审核分录的发生额，再沿科目层级向上汇总生成财务报表
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportService {
+    
+    private final AccountTreeCache accountTreeCache;
+    private final SplitRepository splitRepository;
+    private final TransactionRepository transactionRepository;
+    private final PeriodCloseService periodCloseService;
+    
+    /**
+     * 试算平衡表
+     * 统计期间内各科目的借贷发生额
+     */
+    public TrialBalanceReport getTrialBalance(LocalDate startDate, LocalDate endDate) {
+        log.debug("生成试算平衡表: startDate={}, endDate={}", startDate, endDate);
+        validateRange(startDate, endDate);
+        List<AccountAmount> amounts = splitRepository.sumApprovedAmountsBetween(
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+        
+        List<ReportLine> lines = rollUp(accountTreeCache.getAccounts(), amounts);
+        BigDecimal totalDebit = sumRoots(lines, null, ReportLine::getDebitAmount);
+        BigDecimal totalCredit = sumRoots(lines, null, ReportLine::getCreditAmount);
+        return new TrialBalanceReport(startDate, endDate, lines, totalDebit, totalCredit,
+                totalDebit.compareTo(totalCredit) == 0);
+    }
+    
+    /**
+     * 利润表
+     * 统计期间内收入、费用类科目的发生额
+     */
+    public IncomeStatementReport getIncomeStatement(LocalDate startDate, LocalDate endDate) {
+        log.debug("生成利润表: startDate={}, endDate={}", startDate, endDate);
+        validateRange(startDate, endDate);
+        List<AccountAmount> amounts = splitRepository.sumApprovedAmountsBetween(
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+        
+        List<ReportLine> lines = rollUp(accountTreeCache.getAccounts(), amounts);
+        BigDecimal totalRevenue = sumRoots(lines, AccountCategory.REVENUE, ReportLine::getBalance);
+        BigDecimal totalExpense = sumRoots(lines, AccountCategory.EXPENSE, ReportLine::getBalance);
+        return new IncomeStatementReport(startDate, endDate,
+                filterCategory(lines, AccountCategory.REVENUE),
+                filterCategory(lines, AccountCategory.EXPENSE),
+                totalRevenue, totalExpense, totalRevenue.subtract(totalExpense));
+    }
+    
+    /**
+     * 资产负债表
+     * 统计截至指定日期（含）各科目的累计余额，收入减费用作为未结转损益计入权益方
+     * 累计余额基于最近的期末快照计算，无需扫描全部历史拆分
+     */
+    public BalanceSheetReport getBalanceSheet(LocalDate asOfDate) {
+        log.debug("生成资产负债表: asOfDate={}", asOfDate);
+        List<AccountAmount> amounts = new ArrayList<>(
+                periodCloseService.getBalancesAsOf(asOfDate.plusDays(1).atStartOfDay()).values());
+        
+        List<ReportLine> lines = rollUp(accountTreeCache.getAccounts(), amounts);
+        BigDecimal totalAssets = sumRoots(lines, AccountCategory.ASSET, ReportLine::getBalance);
+        BigDecimal totalLiabilities = sumRoots(lines, AccountCategory.LIABILITY, ReportLine::getBalance);
+        BigDecimal totalEquity = sumRoots(lines, AccountCategory.EQUITY, ReportLine::getBalance);
+        BigDecimal undistributedProfit = sumRoots(lines, AccountCategory.REVENUE, ReportLine::getBalance)
+                .subtract(sumRoots(lines, AccountCategory.EXPENSE, ReportLine::getBalance));
+        BigDecimal totalLiabilitiesAndEquity = totalLiabilities.add(totalEquity).add(undistributedProfit);
+        return new BalanceSheetReport(asOfDate,
+                filterCategory(lines, AccountCategory.ASSET),
+                filterCategory(lines, AccountCategory.LIABILITY),
+                filterCategory(lines, AccountCategory.EQUITY),
+                totalAssets, totalLiabilities, totalEquity, undistributedProfit, totalLiabilitiesAndEquity,
+                totalAssets.compareTo(totalLiabilitiesAndEquity) == 0);
+    }
+    
+    /**
+     * 账龄分析表
+     * 按供应商/客户将截至统计日（含）未结清交易的未结清金额按逾期天数分档，
+     * 扣减已支付金额和分档汇总在一条查询中完成，只返回每个供应商/客户一行；
+     * 统计日早于今天时交易的当前状态不代表当时的状态，只按统计日前的付款判断是否结清
+     */
+    public AgingReport getAgingReport(LocalDate asOfDate) {
+        log.debug("生成账龄分析表: asOfDate={}", asOfDate);
+        boolean historical = asOfDate.isBefore(LocalDate.now());
+        List<Object[]> rows = transactionRepository.sumOpenAmountsByAge(asOfDate.plusDays(1).atStartOfDay(),
+                historical, asOfDate.atStartOfDay(), asOfDate.minusDays(30).atStartOfDay(),
+                asOfDate.minusDays(60).atStartOfDay(), asOfDate.minusDays(90).atStartOfDay(),
+                asOfDate.minusDays(120).atStartOfDay());
+        
+        List<AgingLine> lines = new ArrayList<>(rows.size());
+        AgingLine total = new AgingLine(null, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0L);
+        for (Object[] row : rows) {
+            AgingLine line = new AgingLine((String) row[0], decimal(row[1]), decimal(row[2]), decimal(row[3]),
+                    decimal(row[4]), decimal(row[5]), decimal(row[6]), decimal(row[7]), ((Number) row[8]).longValue());
+            lines.add(line);
+            total.setCurrent(total.getCurrent().add(line.getCurrent()));
+            total.setDays1To30(total.getDays1To30().add(line.getDays1To30()));
+            total.setDays31To60(total.getDays31To60().add(line.getDays31To60()));
+            total.setDays61To90(total.getDays61To90().add(line.getDays61To90()));
+            total.setDays91To120(total.getDays91To120().add(line.getDays91To120()));
+            total.setOver120(total.getOver120().add(line.getOver120()));
+            total.setTotal(total.getTotal().add(line.getTotal()));
+            total.setTransactionCount(total.getTransactionCount() + line.getTransactionCount());
+        }
+        return new AgingReport(asOfDate, lines, total);
+    }
+    
+    private static BigDecimal decimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal amount = value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    private void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new BusinessException("开始日期不能晚于结束日期");
+        }
+    }
+    
+    /**
+     * 沿 parentID 将科目发生额向上汇总
+     * 按科目编码排序先序输出，每行金额包含全部下级科目，没有发生额的科目不输出
+     */
+    private List<ReportLine> rollUp(List<Account> accounts, List<AccountAmount> amounts) {
+        Map<Integer, AccountAmount> amountByAccount = amounts.stream()
+                .collect(Collectors.toMap(AccountAmount::getAccountId, Function.identity()));
+        Map<Integer, Account> accountById = accounts.stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        
+        Map<Integer, List<Account>> children = new HashMap<>();
+        List<Account> roots = new ArrayList<>();
+        for (Account account : accounts) {
+            if (account.getParentID() == null || !accountById.containsKey(account.getParentID())) {
+                roots.add(account);
+            } else {
+                children.computeIfAbsent(account.getParentID(), k -> new ArrayList<>()).add(account);
+            }
+        }
+        
+        List<ReportLine> lines = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        roots.sort(Comparator.comparing(Account::getCode));
+        children.values().forEach(list -> list.sort(Comparator.comparing(Account::getCode)));
+        for (Account root : roots) {
+            appendLines(root, 0, children, amountByAccount, visited, lines);
+        }
+        return lines;
+    }
+    
+    /**
+     * 递归输出科目及其下级科目，返回汇总后的 [借方, 贷方]
+     */
+    private BigDecimal[] appendLines(Account account, int level, Map<Integer, List<Account>> children,
+                                     Map<Integer, AccountAmount> amountByAccount, Set<Integer> visited,
+                                     List<ReportLine> lines) {
+        if (!visited.add(account.getId())) {
+            log.warn("科目层级存在循环引用: accountId={}", account.getId());
+            return new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO};
+        }
+        AccountAmount own = amountByAccount.get(account.getId());
+        BigDecimal debit = own != null && own.getDebitAmount() != null ? own.getDebitAmount() : BigDecimal.ZERO;
+        BigDecimal credit = own != null && own.getCreditAmount() != null ? own.getCreditAmount() : BigDecimal.ZERO;
+        
+        // 先占位，汇总完下级科目后再填充金额，保证先序输出
+        int position = lines.size();
+        lines.add(null);
+        for (Account child : children.getOrDefault(account.getId(), List.of())) {
+            BigDecimal[] childAmounts = appendLines(child, level + 1, children, amountByAccount, visited, lines);
+            debit = debit.add(childAmounts[0]);
+            credit = credit.add(childAmounts[1]);
+        }
+        
+        if (debit.signum() == 0 && credit.signum() == 0) {
+            lines.remove(position);
+        } else {
+            lines.set(position, new ReportLine(account.getId(), account.getCode(), account.getName(),
+                    account.getCategory(), account.getParentID(), level, debit, credit,
+                    AccountCategory.balanceOf(account.getCategory(), debit, credit)));
+        }
+        return new BigDecimal[]{debit, credit};
+    }
+    
+    /**
+     * 汇总根科目金额（根科目已包含下级科目，避免重复计算）
+     */
+    private BigDecimal sumRoots(List<ReportLine> lines, String category, Function<ReportLine, BigDecimal> amount) {
+        return lines.stream()
+                .filter(line -> line.getLevel() == 0)
+                .filter(line -> category == null || category.equals(line.getCategory()))
+                .map(amount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+    
+    private List<ReportLine> filterCategory(List<ReportLine> lines, String category) {
+        return lines.stream()
+                .filter(line -> category.equals(line.getCategory()))
+                .collect(Collectors.toList());
+    }
+}
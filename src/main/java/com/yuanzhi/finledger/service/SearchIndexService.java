@@ -0,0 +1,717 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.dto.SearchFacetCount;
+import com.yuanzhi.finledger.dto.SearchHit;
+import com.yuanzhi.finledger.dto.SearchResult;
+import com.yuanzhi.finledger.entity.Entry;
+import com.yuanzhi.finledger.entity.Transaction;
+import com.yuanzhi.finledger.exception.BusinessException;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.range.LongRange;
+import org.apache.lucene.facet.range.LongRangeFacetCounts;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 搜索索引服务类
+ * 在本地磁盘维护交易和分录文本字段（供应商/客户、项目、产品/服务、分录摘要）的 Lucene 倒排索引，
+ * 提供关键词搜索以及按金额、日期区间的分面统计，不再由前端下载全部数据过滤。
+ * 交易、分录的增删改在事务提交后由单线程增量写入索引，约一个刷新间隔后可被搜索到；
+ * 启动时从数据库全量重建。多节点部署时其他节点的写入不会实时进入本节点索引，由定时同步按数据库维护的
+ * updated_at 补录，删除则通过比对记录数发现并触发全量重建，因此其他节点的变更最长约一个同步间隔后才能搜索到
+ */
+@Slf4j
+@Service
+public class SearchIndexService {
+    
+    public static final String TYPE_TRANSACTION = "transaction";
+    public static final String TYPE_ENTRY = "entry";
+    
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+    
+    /**
+     * 最多可翻到的命中条数，更深的结果应通过缩小条件查找
+     */
+    private static final int MAX_WINDOW = 1000;
+    
+    private static final String FIELD_UID = "uid";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_DATE = "date";
+    private static final String FIELD_AMOUNT = "amount";
+    private static final String FIELD_SUPPLIER_CLIENT = "supplierClient";
+    private static final String FIELD_PROJECT = "project";
+    private static final String FIELD_PRODUCT_SERVICE = "productService";
+    private static final String FIELD_SUMMARY = "summary";
+    private static final String FIELD_TRANSACTION_ID = "transactionId";
+    
+    private static final List<String> TEXT_FIELDS =
+            List.of(FIELD_SUPPLIER_CLIENT, FIELD_PROJECT, FIELD_PRODUCT_SERVICE, FIELD_SUMMARY);
+    private static final Set<String> TYPES = Set.of(TYPE_TRANSACTION, TYPE_ENTRY);
+    
+    /**
+     * 日期分面：近 N 天（含今天）及更早
+     */
+    private static final int[] DATE_FACET_DAYS = {7, 30, 90, 365};
+    
+    /**
+     * 增量同步向前多查的时间，覆盖同步时尚未提交的事务和节点间的时钟误差
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+    
+    private static final Sort DATE_DESC = new Sort(LongField.newSortField(FIELD_DATE, true, SortedNumericSelector.Type.MIN));
+    
+    private final EntityManager entityManager;
+    private final ThreadPoolTaskExecutor searchIndexExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate syncTransaction;
+    private final List<BigDecimal> amountBuckets;
+    private final int fetchSize;
+    
+    /**
+     * StandardAnalyzer 将中文按单字切分，关键词以短语查询匹配，效果等同于子串匹配
+     */
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean syncing = new AtomicBoolean();
+    
+    /**
+     * 已同步到的数据库时间，下次同步从该时间（减去重叠时间）之后更新的记录开始
+     */
+    private volatile LocalDateTime syncedUntil;
+    
+    /**
+     * 启动后首次重建完成前为 false
+     */
+    private volatile boolean ready;
+    
+    /**
+     * @param fetchSize 重建时读取数据库的 JDBC fetch size，与数据导出相同
+     */
+    public SearchIndexService(EntityManager entityManager,
+                              @Qualifier("searchIndexExecutor") ThreadPoolTaskExecutor searchIndexExecutor,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${finledger.search.index-dir:data/search-index}") Path indexDir,
+                              @Value("${finledger.search.amount-buckets:1000,10000,100000}") List<BigDecimal> amountBuckets,
+                              @Value("${finledger.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize)
+            throws IOException {
+        this.entityManager = entityManager;
+        this.searchIndexExecutor = searchIndexExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // 增量同步在读写事务中执行，启用读写分离时读主库，不受从库延迟影响
+        this.syncTransaction = new TransactionTemplate(transactionManager);
+        this.amountBuckets = amountBuckets.stream().sorted().toList();
+        this.fetchSize = fetchSize;
+        
+        Files.createDirectories(indexDir);
+        this.directory = FSDirectory.open(indexDir);
+        // 索引内容以数据库为准，每次启动清空后重建
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+                .setRAMBufferSizeMB(64);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+        log.info("搜索索引已打开: dir={}", indexDir.toAbsolutePath());
+    }
+    
+    /**
+     * 交易新增或修改后更新索引（事务提交后生效）
+     */
+    public void transactionsSaved(Collection<Transaction> transactions) {
+        Map<String, Document> changes = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            changes.put(uid(TYPE_TRANSACTION, transaction.getId()), transactionDocument(transaction));
+        }
+        updateAfterCommit(changes);
+    }
+    
+    /**
+     * 交易删除后从索引移除（事务提交后生效）
+     */
+    public void transactionDeleted(Integer id) {
+        // 数据库按外键级联删除该交易的分录，索引中一并删除
+        Query entries = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_TYPE, TYPE_ENTRY)), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(new Term(FIELD_TRANSACTION_ID, String.valueOf(id))), BooleanClause.Occur.FILTER)
+                .build();
+        afterCommit(uid(TYPE_TRANSACTION, id), () -> {
+            writer.deleteDocuments(new Term(FIELD_UID, uid(TYPE_TRANSACTION, id)));
+            writer.deleteDocuments(entries);
+        });
+    }
+    
+    /**
+     * 分录新增后更新索引（事务提交后生效）
+     */
+    public void entriesSaved(Collection<Entry> entries) {
+        Map<String, Document> changes = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            changes.put(uid(TYPE_ENTRY, entry.getId()), entryDocument(entry));
+        }
+        updateAfterCommit(changes);
+    }
+    
+    /**
+     * 分录删除后从索引移除（事务提交后生效）
+     */
+    public void entryDeleted(Integer id) {
+        Map<String, Document> changes = new LinkedHashMap<>();
+        changes.put(uid(TYPE_ENTRY, id), null);
+        updateAfterCommit(changes);
+    }
+    
+    /**
+     * 搜索交易和分录
+     * 多个关键词以空格分隔，每个关键词须出现在任一文本字段中，按相关度排序；不传关键词时按日期倒序。
+     * 金额区间含下限不含上限，日期区间两端均含
+     */
+    public SearchResult search(String keywords, String type, BigDecimal minAmount, BigDecimal maxAmount,
+                               LocalDate startDate, LocalDate endDate, Integer page, Integer size) {
+        int limit = size != null ? size : DEFAULT_SIZE;
+        int offset = (page != null ? page : 0) * limit;
+        if (limit < 1 || limit > MAX_SIZE) {
+            throw new BusinessException("每页条数应在1到" + MAX_SIZE + "之间");
+        }
+        if (offset < 0 || offset + limit > MAX_WINDOW) {
+            throw new BusinessException("最多只能查看前" + MAX_WINDOW + "条结果，请缩小搜索范围");
+        }
+        if (type != null && !TYPES.contains(type)) {
+            throw new BusinessException("不支持的搜索类型: " + type);
+        }
+        
+        long start = System.currentTimeMillis();
+        boolean hasKeywords = keywords != null && !keywords.isBlank();
+        Query baseQuery = baseQuery(keywords, type);
+        Query query = filter(baseQuery, minAmount, maxAmount, startDate, endDate);
+        
+        IndexSearcher searcher = acquire();
+        try {
+            // 一次遍历同时取得当前页、命中总数和分面所需的命中集合；有区间筛选时分面另按未筛选的条件统计。
+            // 有关键词时按相关度排序，否则按日期倒序
+            FacetsCollectorManager.FacetsResult result = hasKeywords
+                    ? FacetsCollectorManager.search(searcher, query, offset + limit, new FacetsCollectorManager())
+                    : FacetsCollectorManager.search(searcher, query, offset + limit, DATE_DESC, new FacetsCollectorManager());
+            TopDocs topDocs = result.topDocs();
+            List<SearchHit> hits = new ArrayList<>();
+            StoredFields storedFields = searcher.storedFields();
+            for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                hits.add(toHit(storedFields.document(scoreDoc.doc), hasKeywords ? scoreDoc.score : null));
+            }
+            long total = result.facetsCollector().getMatchingDocs().stream()
+                    .mapToLong(matchingDocs -> matchingDocs.totalHits)
+                    .sum();
+            
+            FacetsCollector facets = query == baseQuery
+                    ? result.facetsCollector()
+                    : searcher.search(baseQuery, new FacetsCollectorManager());
+            List<SearchFacetCount> amountFacets = amountFacets(facets);
+            List<SearchFacetCount> dateFacets = dateFacets(facets, LocalDate.now());
+            
+            long tookMs = System.currentTimeMillis() - start;
+            log.debug("搜索: keywords={}, type={}, total={}, tookMs={}", keywords, type, total, tookMs);
+            return new SearchResult(total, hits, amountFacets, dateFacets, ready, tookMs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(searcher);
+        }
+    }
+    
+    /**
+     * 启动时全量重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+    
+    /**
+     * 从数据库全量重建索引（在索引线程后台执行）
+     * 重建期间搜索仍返回重建前的结果，完成后整体切换
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new BusinessException("搜索索引正在重建，请稍后再试");
+        }
+        try {
+            searchIndexExecutor.execute(this::rebuildIndex);
+        } catch (TaskRejectedException e) {
+            rebuilding.set(false);
+            throw new BusinessException("搜索索引更新任务积压，请稍后再试");
+        }
+    }
+    
+    /**
+     * 定时刷新搜索视图，使已写入的增量更新可被搜索到；重建期间不刷新
+     */
+    @Scheduled(fixedDelayString = "${finledger.search.refresh-interval:1s}")
+    public void refresh() {
+        if (rebuilding.get()) {
+            return;
+        }
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.warn("搜索索引刷新失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 定时同步其他节点的变更（在索引线程执行）
+     * 重新索引上次同步以来更新过的交易和分录；之后数据库与索引的记录数仍不一致（其他节点删除了记录）时全量重建
+     */
+    @Scheduled(fixedDelayString = "${finledger.search.sync-interval:1m}",
+            initialDelayString = "${finledger.search.sync-interval:1m}")
+    public void sync() {
+        if (!ready || rebuilding.get() || !syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            searchIndexExecutor.execute(this::syncIndex);
+        } catch (TaskRejectedException e) {
+            syncing.set(false);
+            log.warn("搜索索引更新队列已满，跳过本次同步");
+        }
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        // 先等待已提交的索引任务执行完，再关闭索引
+        searchIndexExecutor.shutdown();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+    
+    private void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        log.info("开始重建搜索索引");
+        try {
+            syncedUntil = syncTransaction.execute(status -> currentDatabaseTime());
+            writer.deleteAll();
+            long count = readOnlyTransaction.execute(status ->
+                    indexAll(Transaction.class, SearchIndexService::transactionDocument)
+                            + indexAll(Entry.class, SearchIndexService::entryDocument));
+            writer.commit();
+            rebuilding.set(false);
+            searcherManager.maybeRefresh();
+            ready = true;
+            log.info("搜索索引重建完成: documents={}, elapsed={}ms", count, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            rebuilding.set(false);
+            log.error("搜索索引重建失败，可通过重建接口重试", e);
+        }
+    }
+    
+    private void syncIndex() {
+        try {
+            // 已排队的重建会覆盖本次同步
+            if (rebuilding.get()) {
+                return;
+            }
+            LocalDateTime since = syncedUntil.minus(SYNC_OVERLAP);
+            long[] counts = syncTransaction.execute(status -> {
+                LocalDateTime now = currentDatabaseTime();
+                long changed = indexChangedSince(Transaction.class, since, SearchIndexService::transactionDocument)
+                        + indexChangedSince(Entry.class, since, SearchIndexService::entryDocument);
+                syncedUntil = now;
+                return new long[]{changed, count(Transaction.class), count(Entry.class)};
+            });
+            searcherManager.maybeRefreshBlocking();
+            IndexSearcher searcher = acquire();
+            boolean consistent;
+            try {
+                consistent = searcher.count(new TermQuery(new Term(FIELD_TYPE, TYPE_TRANSACTION))) == counts[1]
+                        && searcher.count(new TermQuery(new Term(FIELD_TYPE, TYPE_ENTRY))) == counts[2];
+            } finally {
+                release(searcher);
+            }
+            log.debug("搜索索引同步完成: changed={}, since={}", counts[0], since);
+            if (!consistent && rebuilding.compareAndSet(false, true)) {
+                log.info("搜索索引与数据库记录数不一致，全量重建: transactions={}, entries={}", counts[1], counts[2]);
+                rebuildIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("搜索索引同步失败，下次同步时重试", e);
+        } finally {
+            syncing.set(false);
+        }
+    }
+    
+    /**
+     * 流式读取全部记录写入索引，逐行从持久化上下文中移除，内存占用与行数无关
+     */
+    private <T> long indexAll(Class<T> entityClass, Function<T, Document> toDocument) {
+        return index(entityManager.createQuery("SELECT r FROM " + entityClass.getSimpleName() + " r", entityClass),
+                toDocument, false);
+    }
+    
+    /**
+     * 重新索引指定时间之后更新过的记录
+     */
+    private <T> long indexChangedSince(Class<T> entityClass, LocalDateTime since, Function<T, Document> toDocument) {
+        return index(entityManager
+                .createQuery("SELECT r FROM " + entityClass.getSimpleName() + " r WHERE r.updatedAt >= :since",
+                        entityClass)
+                .setParameter("since", since), toDocument, true);
+    }
+    
+    private <T> long index(TypedQuery<T> query, Function<T, Document> toDocument, boolean replace) {
+        long count = 0;
+        try (Stream<T> rows = query
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                Document document = toDocument.apply(row);
+                if (replace) {
+                    writer.updateDocument(new Term(FIELD_UID, document.get(FIELD_UID)), document);
+                } else {
+                    writer.addDocument(document);
+                }
+                entityManager.detach(row);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+    
+    private long count(Class<?> entityClass) {
+        return entityManager.createQuery("SELECT COUNT(r) FROM " + entityClass.getSimpleName() + " r", Long.class)
+                .getSingleResult();
+    }
+    
+    /**
+     * 以数据库时间作为同步进度，与 updated_at 同源，不受各节点时钟差异影响
+     */
+    private LocalDateTime currentDatabaseTime() {
+        return entityManager.createQuery("SELECT LOCAL DATETIME", LocalDateTime.class).getSingleResult();
+    }
+    
+    /**
+     * 按 uid 写入或删除文档，value 为 null 表示删除
+     */
+    private void updateAfterCommit(Map<String, Document> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        afterCommit(changes.keySet(), () -> {
+            for (Map.Entry<String, Document> change : changes.entrySet()) {
+                Term uid = new Term(FIELD_UID, change.getKey());
+                if (change.getValue() == null) {
+                    writer.deleteDocuments(uid);
+                } else {
+                    writer.updateDocument(uid, change.getValue());
+                }
+            }
+        });
+    }
+    
+    /**
+     * 事务提交后提交到索引线程，回滚时不更新；没有事务时立即提交
+     */
+    private void afterCommit(Object description, IndexUpdate update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(description, update);
+                }
+            });
+        } else {
+            submit(description, update);
+        }
+    }
+    
+    private void submit(Object description, IndexUpdate update) {
+        try {
+            searchIndexExecutor.execute(() -> {
+                try {
+                    update.apply();
+                } catch (IOException | RuntimeException e) {
+                    log.error("搜索索引更新失败: changes={}", description, e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("搜索索引更新队列已满，变更未写入索引，将在下次同步时补录: changes={}", description);
+        }
+    }
+    
+    private Query baseQuery(String keywords, String type) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (keywords != null && !keywords.isBlank()) {
+            for (String keyword : keywords.trim().split("\\s+")) {
+                // 关键词在任一字段中以短语出现即可
+                BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+                for (String field : TEXT_FIELDS) {
+                    Query phrase = queryBuilder.createPhraseQuery(field, keyword);
+                    if (phrase != null) {
+                        anyField.add(phrase, BooleanClause.Occur.SHOULD);
+                    }
+                }
+                builder.add(anyField.build(), BooleanClause.Occur.MUST);
+            }
+        } else {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        if (type != null) {
+            builder.add(new TermQuery(new Term(FIELD_TYPE, type)), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+    
+    private static Query filter(Query baseQuery, BigDecimal minAmount, BigDecimal maxAmount,
+                                LocalDate startDate, LocalDate endDate) {
+        if (minAmount == null && maxAmount == null && startDate == null && endDate == null) {
+            return baseQuery;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(baseQuery, BooleanClause.Occur.MUST);
+        if (minAmount != null || maxAmount != null) {
+            builder.add(LongField.newRangeQuery(FIELD_AMOUNT,
+                    minAmount != null ? toCents(minAmount) : Long.MIN_VALUE,
+                    maxAmount != null ? toCents(maxAmount) - 1 : Long.MAX_VALUE), BooleanClause.Occur.FILTER);
+        }
+        if (startDate != null || endDate != null) {
+            builder.add(LongField.newRangeQuery(FIELD_DATE,
+                    startDate != null ? toEpochSecond(startDate.atStartOfDay()) : Long.MIN_VALUE,
+                    endDate != null ? toEpochSecond(endDate.plusDays(1).atStartOfDay()) - 1 : Long.MAX_VALUE),
+                    BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+    
+    /**
+     * 金额分面：按配置的分档边界划分，如 1000,10000 划分为 1000以下、1000-10000、10000以上
+     */
+    private List<SearchFacetCount> amountFacets(FacetsCollector facets) throws IOException {
+        int size = amountBuckets.size() + 1;
+        LongRange[] ranges = new LongRange[size];
+        String[][] bounds = new String[size][];
+        for (int i = 0; i < size; i++) {
+            BigDecimal from = i > 0 ? amountBuckets.get(i - 1) : null;
+            BigDecimal to = i < amountBuckets.size() ? amountBuckets.get(i) : null;
+            String label = from == null ? to.toPlainString() + "以下"
+                    : to == null ? from.toPlainString() + "以上"
+                    : from.toPlainString() + "-" + to.toPlainString();
+            ranges[i] = new LongRange(label,
+                    from != null ? toCents(from) : Long.MIN_VALUE, true,
+                    to != null ? toCents(to) : Long.MAX_VALUE, to == null);
+            bounds[i] = new String[]{from != null ? from.toPlainString() : null, to != null ? to.toPlainString() : null};
+        }
+        return toFacetCounts(new LongRangeFacetCounts(FIELD_AMOUNT, facets, ranges), FIELD_AMOUNT, ranges, bounds);
+    }
+    
+    /**
+     * 日期分面：近7天、近30天、近90天、近一年（各档相互包含）及一年以前
+     */
+    private static List<SearchFacetCount> dateFacets(FacetsCollector facets, LocalDate today) throws IOException {
+        int size = DATE_FACET_DAYS.length + 1;
+        LongRange[] ranges = new LongRange[size];
+        String[][] bounds = new String[size][];
+        for (int i = 0; i < DATE_FACET_DAYS.length; i++) {
+            LocalDate from = today.minusDays(DATE_FACET_DAYS[i] - 1);
+            ranges[i] = new LongRange("近" + DATE_FACET_DAYS[i] + "天",
+                    toEpochSecond(from.atStartOfDay()), true, Long.MAX_VALUE, true);
+            bounds[i] = new String[]{from.toString(), null};
+        }
+        LocalDate earlierThan = today.minusDays(DATE_FACET_DAYS[DATE_FACET_DAYS.length - 1] - 1);
+        ranges[size - 1] = new LongRange("更早", Long.MIN_VALUE, true, toEpochSecond(earlierThan.atStartOfDay()), false);
+        bounds[size - 1] = new String[]{null, earlierThan.minusDays(1).toString()};
+        return toFacetCounts(new LongRangeFacetCounts(FIELD_DATE, facets, ranges), FIELD_DATE, ranges, bounds);
+    }
+    
+    private static List<SearchFacetCount> toFacetCounts(LongRangeFacetCounts counts, String field,
+                                                        LongRange[] ranges, String[][] bounds) throws IOException {
+        Map<String, Number> values = new HashMap<>();
+        for (LabelAndValue labelValue : counts.getAllChildren(field).labelValues) {
+            values.put(labelValue.label, labelValue.value);
+        }
+        List<SearchFacetCount> facetCounts = new ArrayList<>(ranges.length);
+        for (int i = 0; i < ranges.length; i++) {
+            Number value = values.get(ranges[i].label);
+            facetCounts.add(new SearchFacetCount(ranges[i].label, bounds[i][0], bounds[i][1],
+                    value != null ? value.longValue() : 0));
+        }
+        return facetCounts;
+    }
+    
+    private static SearchHit toHit(Document document, Float score) {
+        SearchHit hit = new SearchHit();
+        hit.setType(document.get(FIELD_TYPE));
+        hit.setId(document.getField(FIELD_ID).numericValue().intValue());
+        if (document.getField(FIELD_DATE) != null) {
+            hit.setDate(LocalDateTime.ofEpochSecond(document.getField(FIELD_DATE).numericValue().longValue(), 0,
+                    ZoneOffset.UTC));
+        }
+        if (document.getField(FIELD_AMOUNT) != null) {
+            hit.setAmount(BigDecimal.valueOf(document.getField(FIELD_AMOUNT).numericValue().longValue(), 2));
+        }
+        hit.setSupplierClient(document.get(FIELD_SUPPLIER_CLIENT));
+        hit.setProject(document.get(FIELD_PROJECT));
+        hit.setProductService(document.get(FIELD_PRODUCT_SERVICE));
+        hit.setSummary(document.get(FIELD_SUMMARY));
+        if (document.get(FIELD_TRANSACTION_ID) != null) {
+            hit.setTransactionId(Integer.valueOf(document.get(FIELD_TRANSACTION_ID)));
+        }
+        hit.setScore(score);
+        return hit;
+    }
+    
+    private static Document transactionDocument(Transaction transaction) {
+        Document document = newDocument(TYPE_TRANSACTION, transaction.getId(), transaction.getDate(),
+                transaction.getTotalAmount());
+        addText(document, FIELD_SUPPLIER_CLIENT, transaction.getSupplierClient());
+        addText(document, FIELD_PROJECT, transaction.getProject());
+        addText(document, FIELD_PRODUCT_SERVICE, transaction.getProductService());
+        return document;
+    }
+    
+    private static Document entryDocument(Entry entry) {
+        Document document = newDocument(TYPE_ENTRY, entry.getId(), entry.getCreatedDate(), entry.getTotalAmount());
+        addText(document, FIELD_SUMMARY, entry.getSummary());
+        if (entry.getTransactionID() != null) {
+            // 作为词项索引，删除交易时据此删除其分录
+            document.add(new StringField(FIELD_TRANSACTION_ID, String.valueOf(entry.getTransactionID()), Field.Store.YES));
+        }
+        return document;
+    }
+    
+    private static Document newDocument(String type, Integer id, LocalDateTime date, BigDecimal amount) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_UID, uid(type, id), Field.Store.NO));
+        document.add(new StringField(FIELD_TYPE, type, Field.Store.YES));
+        document.add(new StoredField(FIELD_ID, id));
+        if (date != null) {
+            document.add(new LongField(FIELD_DATE, toEpochSecond(date), Field.Store.YES));
+        }
+        if (amount != null) {
+            document.add(new LongField(FIELD_AMOUNT, toCents(amount), Field.Store.YES));
+        }
+        return document;
+    }
+    
+    private static void addText(Document document, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            document.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+    
+    private static String uid(String type, Integer id) {
+        return type + ":" + id;
+    }
+    
+    /**
+     * 金额以分为单位的整数索引，查询下限向上取整到分
+     */
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.CEILING).unscaledValue().longValueExact();
+    }
+    
+    /**
+     * 日期按本地时间原样换算为秒数，只用于比较和排序
+     */
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    /**
+     * 在索引线程上执行的索引变更
+     */
+    @FunctionalInterface
+    private interface IndexUpdate {
+        void apply() throws IOException;
+    }
+    
+    private IndexSearcher acquire() {
+        try {
+            return searcherManager.acquire();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("释放搜索器失败: {}", e.getMessage());
+        }
+    }
+}
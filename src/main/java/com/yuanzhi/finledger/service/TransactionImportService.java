@@ -0,0 +1,475 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.config.WriteCommitTracker;
+import com.yuanzhi.finledger.dto.ImportJob;
+import com.yuanzhi.finledger.dto.ImportRowError;
+import com.yuanzhi.finledger.entity.ImportJobError;
+import com.yuanzhi.finledger.entity.Transaction;
+import com.yuanzhi.finledger.entity.TransactionImportJob;
+import com.yuanzhi.finledger.entity.User;
+import com.yuanzhi.finledger.exception.BusinessException;
+import com.yuanzhi.finledger.repository.ImportJobErrorRepository;
+import com.yuanzhi.finledger.repository.TransactionImportJobRepository;
+import com.yuanzhi.finledger.repository.TransactionRepository;
+import com.yuanzhi.finledger.repository.UserRepository;
+import com.yuanzhi.finledger.util.CsvUtil;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 交易导入服务类
+ * 银行流水 CSV 先落地为临时文件，再由后台线程逐行流式解析：
+ * 每个分块内并行校验，校验通过的行在独立事务中按 JDBC 批次写入；
+ * 任务进度和行错误保存在数据库中，可在任一节点通过任务ID轮询
+ */
+@Slf4j
+@Service
+public class TransactionImportService {
+    
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    /**
+     * 每个事务写入的行数
+     */
+    private static final int CHUNK_SIZE = 1000;
+    
+    /**
+     * 每个任务保留的行错误明细上限
+     */
+    private static final int MAX_ERRORS = 1000;
+    
+    /**
+     * 已结束任务的保留时间
+     */
+    private static final Duration JOB_RETENTION = Duration.ofHours(1);
+    
+    /**
+     * 执行中的任务超过该时间未写入进度，视为执行节点已停止
+     */
+    private static final Duration JOB_STALL_TIMEOUT = Duration.ofMinutes(10);
+    
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("99999999.99");
+    
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final TransactionImportJobRepository importJobRepository;
+    private final ImportJobErrorRepository importJobErrorRepository;
+    private final SearchIndexService searchIndexService;
+    private final WriteCommitTracker writeCommitTracker;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final Set<String> configuredProjects;
+    
+    public TransactionImportService(TransactionRepository transactionRepository, UserRepository userRepository,
+                                    TransactionImportJobRepository importJobRepository,
+                                    ImportJobErrorRepository importJobErrorRepository,
+                                    SearchIndexService searchIndexService, WriteCommitTracker writeCommitTracker,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager,
+                                    @Qualifier("importExecutor") ThreadPoolTaskExecutor importExecutor,
+                                    @Value("${finledger.import.known-projects:}") Set<String> configuredProjects) {
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.importJobRepository = importJobRepository;
+        this.importJobErrorRepository = importJobErrorRepository;
+        this.searchIndexService = searchIndexService;
+        this.writeCommitTracker = writeCommitTracker;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importExecutor = importExecutor;
+        this.configuredProjects = configuredProjects;
+    }
+    
+    /**
+     * 提交导入任务，立即返回任务进度
+     * 导入的交易记为当前用户录入
+     */
+    public ImportJob submit(MultipartFile file, String username) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException("导入文件不能为空");
+        }
+        Integer userId = userRepository.findByUsername(username).map(User::getId).orElse(null);
+        purgeFinishedJobs();
+        
+        Path tempFile;
+        try {
+            // 上传的临时文件在请求结束后会被清理，需先转存再交给后台线程
+            tempFile = Files.createTempFile("transaction-import-", ".csv");
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            log.error("保存导入文件失败: fileName={}", file.getOriginalFilename(), e);
+            throw new BusinessException("保存导入文件失败");
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        TransactionImportJob job = new TransactionImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(),
+                STATUS_RUNNING, 0L, 0L, 0L, null, now, now, null);
+        try {
+            transactionTemplate.executeWithoutResult(status -> importJobRepository.save(job));
+        } catch (RuntimeException e) {
+            deleteQuietly(tempFile);
+            throw e;
+        }
+        try {
+            importExecutor.execute(() -> run(job, tempFile, userId));
+        } catch (TaskRejectedException e) {
+            transactionTemplate.executeWithoutResult(status -> importJobRepository.deleteById(job.getJobId()));
+            deleteQuietly(tempFile);
+            throw new BusinessException("导入任务过多，请稍后再试");
+        }
+        log.info("交易导入任务已提交: jobId={}, fileName={}, size={}", job.getJobId(), job.getFileName(), file.getSize());
+        return toImportJob(job, List.of());
+    }
+    
+    /**
+     * 查询导入任务进度
+     * 从主库读取，刚提交的任务和最新进度立即可见
+     */
+    public ImportJob getJob(String jobId) {
+        return transactionTemplate.execute(status -> {
+            TransactionImportJob job = importJobRepository.findById(jobId)
+                    .orElseThrow(() -> new BusinessException("导入任务不存在"));
+            List<ImportRowError> errors = importJobErrorRepository.findByJobIdOrderByRowNo(jobId).stream()
+                    .map(error -> new ImportRowError(error.getRowNo(), error.getMessage()))
+                    .toList();
+            return toImportJob(job, errors);
+        });
+    }
+    
+    private void run(TransactionImportJob job, Path file, Integer userId) {
+        long start = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Integer> header = readHeader(reader);
+            Set<String> knownProjects = loadKnownProjects();
+            
+            List<RawRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            long rowNumber = 0;
+            List<String> record;
+            while ((record = CsvUtil.readRecord(reader)) != null) {
+                rowNumber++;
+                if (isBlank(record)) {
+                    continue;
+                }
+                chunk.add(new RawRow(rowNumber, record));
+                if (chunk.size() == CHUNK_SIZE) {
+                    processChunk(job, chunk, header, knownProjects, userId);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(job, chunk, header, knownProjects, userId);
+            }
+            finish(job, STATUS_COMPLETED, null);
+            log.info("交易导入完成: jobId={}, imported={}, failed={}, elapsed={}ms",
+                    job.getJobId(), job.getImportedRows(), job.getFailedRows(), System.currentTimeMillis() - start);
+        } catch (BusinessException e) {
+            finish(job, STATUS_FAILED, e.getMessage());
+            log.warn("交易导入失败: jobId={}, error={}", job.getJobId(), e.getMessage());
+        } catch (Exception e) {
+            finish(job, STATUS_FAILED, "导入失败: " + e.getMessage());
+            log.error("交易导入异常: jobId={}", job.getJobId(), e);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+    
+    /**
+     * 并行校验一个分块，再在一个事务中批量写入校验通过的行
+     */
+    private void processChunk(TransactionImportJob job, List<RawRow> chunk, Map<String, Integer> header,
+                              Set<String> knownProjects, Integer userId) {
+        List<ParsedRow> parsed = chunk.parallelStream()
+                .map(row -> parse(row, header, knownProjects, userId))
+                .toList();
+        
+        List<Transaction> valid = new ArrayList<>();
+        List<ImportRowError> errors = new ArrayList<>();
+        for (ParsedRow row : parsed) {
+            if (row.error != null) {
+                errors.add(new ImportRowError(row.rowNumber, row.error));
+            } else {
+                valid.add(row.transaction);
+            }
+        }
+        
+        int imported = 0;
+        if (!valid.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    transactionRepository.saveAll(valid);
+                    writeCommitTracker.markWritten(WriteCommitTracker.TRANSACTIONS);
+                    searchIndexService.transactionsSaved(valid);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                imported = valid.size();
+            } catch (Exception e) {
+                log.error("交易导入分块写入失败: jobId={}, firstRow={}", job.getJobId(), chunk.get(0).rowNumber, e);
+                for (ParsedRow row : parsed) {
+                    if (row.error == null) {
+                        errors.add(new ImportRowError(row.rowNumber, "写入数据库失败"));
+                    }
+                }
+            }
+        }
+        
+        // 每个失败行对应一条错误，已保存的错误条数 = min(已失败行数, MAX_ERRORS)
+        long room = MAX_ERRORS - Math.min(job.getFailedRows(), MAX_ERRORS);
+        List<ImportJobError> kept = errors.stream()
+                .limit(room)
+                .map(error -> new ImportJobError(null, job.getJobId(), error.getRow(), truncate(error.getMessage())))
+                .toList();
+        job.setProcessedRows(job.getProcessedRows() + chunk.size());
+        job.setImportedRows(job.getImportedRows() + imported);
+        job.setFailedRows(job.getFailedRows() + errors.size());
+        job.setUpdatedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            importJobErrorRepository.saveAll(kept);
+            importJobRepository.save(job);
+        });
+    }
+    
+    /**
+     * 解析并校验单行，只读访问共享数据，可并行执行
+     */
+    private ParsedRow parse(RawRow row, Map<String, Integer> header, Set<String> knownProjects, Integer userId) {
+        try {
+            Transaction transaction = new Transaction();
+            String supplierClient = field(row, header, "supplierclient");
+            if (supplierClient == null) {
+                throw new BusinessException("供应商/客户不能为空");
+            }
+            if (supplierClient.length() > 100) {
+                throw new BusinessException("供应商/客户长度不能超过100");
+            }
+            transaction.setSupplierClient(supplierClient);
+            
+            BigDecimal totalAmount = parseDecimal(field(row, header, "totalamount"), "总金额");
+            if (totalAmount == null) {
+                throw new BusinessException("总金额不能为空");
+            }
+            if (totalAmount.signum() <= 0) {
+                throw new BusinessException("总金额必须大于0");
+            }
+            if (totalAmount.compareTo(MAX_AMOUNT) > 0) {
+                throw new BusinessException("总金额超出范围");
+            }
+            transaction.setTotalAmount(totalAmount);
+            
+            String project = field(row, header, "project");
+            if (project != null && !knownProjects.isEmpty() && !knownProjects.contains(project)) {
+                throw new BusinessException("未知项目: " + project);
+            }
+            transaction.setProject(project);
+            
+            LocalDateTime date = parseDateTime(field(row, header, "date"), "交易日期");
+            transaction.setDate(date != null ? date : LocalDateTime.now());
+            transaction.setDueDate(parseDateTime(field(row, header, "duedate"), "账期"));
+            transaction.setProductService(field(row, header, "productservice"));
+            transaction.setQuantity(parseInteger(field(row, header, "quantity"), "数量"));
+            transaction.setUnitPrice(parseDecimal(field(row, header, "unitprice"), "单价"));
+            transaction.setTaxRate(parseDecimal(field(row, header, "taxrate"), "税率"));
+            transaction.setUserID(userId);
+            return new ParsedRow(row.rowNumber, transaction, null);
+        } catch (BusinessException e) {
+            return new ParsedRow(row.rowNumber, null, e.getMessage());
+        }
+    }
+    
+    /**
+     * 读取表头，列名不区分大小写，忽略下划线和空格（supplier_client 与 supplierClient 等价）
+     */
+    private Map<String, Integer> readHeader(BufferedReader reader) throws IOException {
+        List<String> record = CsvUtil.readRecord(reader);
+        if (record == null) {
+            throw new BusinessException("导入文件为空");
+        }
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < record.size(); i++) {
+            String name = record.get(i);
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            header.put(normalizeColumn(name), i);
+        }
+        if (!header.containsKey("supplierclient") || !header.containsKey("totalamount")) {
+            throw new BusinessException("导入文件缺少必需列: supplier_client, total_amount");
+        }
+        return header;
+    }
+    
+    /**
+     * 已知项目 = 配置的项目 + 已有交易中出现过的项目；二者均为空时不校验项目
+     */
+    private Set<String> loadKnownProjects() {
+        Set<String> projects = new HashSet<>();
+        configuredProjects.stream().map(String::trim).filter(p -> !p.isEmpty()).forEach(projects::add);
+        projects.addAll(transactionRepository.findDistinctProjects());
+        return projects;
+    }
+    
+    private void finish(TransactionImportJob job, String status, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(status);
+        job.setMessage(truncate(message));
+        job.setUpdatedAt(now);
+        job.setFinishedAt(now);
+        try {
+            transactionTemplate.executeWithoutResult(s -> importJobRepository.save(job));
+        } catch (Exception e) {
+            log.error("保存导入任务状态失败: jobId={}, status={}", job.getJobId(), status, e);
+        }
+    }
+    
+    /**
+     * 删除已结束超过保留时间的任务及其行错误
+     */
+    private void purgeFinishedJobs() {
+        LocalDateTime expiry = LocalDateTime.now().minus(JOB_RETENTION);
+        transactionTemplate.executeWithoutResult(status -> {
+            importJobErrorRepository.deleteOfExpiredJobs(expiry);
+            importJobRepository.deleteExpired(expiry);
+        });
+    }
+    
+    /**
+     * 转换为接口返回的任务进度；执行中但长时间未写入进度的任务，其执行节点已停止，按失败返回
+     */
+    private ImportJob toImportJob(TransactionImportJob job, List<ImportRowError> errors) {
+        String status = job.getStatus();
+        String message = job.getMessage();
+        if (STATUS_RUNNING.equals(status) && job.getUpdatedAt() != null
+                && job.getUpdatedAt().isBefore(LocalDateTime.now().minus(JOB_STALL_TIMEOUT))) {
+            status = STATUS_FAILED;
+            message = "导入任务已中断，请重新导入";
+        }
+        return new ImportJob(job.getJobId(), job.getFileName(), status, job.getProcessedRows(),
+                job.getImportedRows(), job.getFailedRows(), errors, message, job.getStartedAt(),
+                job.getFinishedAt());
+    }
+    
+    private static String field(RawRow row, Map<String, Integer> header, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= row.values.size()) {
+            return null;
+        }
+        String value = row.values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static BigDecimal parseDecimal(String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            throw new BusinessException(label + "格式错误: " + value);
+        }
+    }
+    
+    private static Integer parseInteger(String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new BusinessException(label + "格式错误: " + value);
+        }
+    }
+    
+    /**
+     * 支持 yyyy-MM-dd、yyyy-MM-dd HH:mm:ss 和 ISO 格式
+     */
+    private static LocalDateTime parseDateTime(String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay();
+            }
+            if (value.indexOf('T') > 0) {
+                return LocalDateTime.parse(value);
+            }
+            return LocalDateTime.parse(value, DATE_TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException(label + "格式错误: " + value);
+        }
+    }
+    
+    private static String truncate(String message) {
+        return message != null && message.length() > 255 ? message.substring(0, 255) : message;
+    }
+    
+    private static String normalizeColumn(String name) {
+        return name.replace("_", "").replace(" ", "").toLowerCase();
+    }
+    
+    private static boolean isBlank(List<String> record) {
+        return record.stream().allMatch(value -> value.trim().isEmpty());
+    }
+    
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导入临时文件失败: file={}", file);
+        }
+    }
+    
+    private static final class RawRow {
+        private final long rowNumber;
+        private final List<String> values;
+        
+        private RawRow(long rowNumber, List<String> values) {
+            this.rowNumber = rowNumber;
+            this.values = values;
+        }
+    }
+    
+    private static final class ParsedRow {
+        private final long rowNumber;
+        private final Transaction transaction;
+        private final String error;
+        
+        private ParsedRow(long rowNumber, Transaction transaction, String error) {
+            this.rowNumber = rowNumber;
+            this.transaction = transaction;
+            this.error = error;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.yuanzhi.finledger.service;
 
+import com.yuanzhi.finledger.config.WriteCommitTracker;
+import com.yuanzhi.finledger.dto.CursorPage;
 import com.yuanzhi.finledger.entity.Transaction;
 import com.yuanzhi.finledger.exception.BusinessException;
 import com.yuanzhi.finledger.repository.TransactionRepository;
+import com.yuanzhi.finledger.util.KeysetPagination;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +26,9 @@ import java.util.List;
 public class TransactionService {
     
     private final TransactionRepository transactionRepository;
+    private final SearchIndexService searchIndexService;
+    private final EntryService entryService;
+    private final WriteCommitTracker writeCommitTracker;
     
     /**
      * 创建交易记录
@@ -35,6 +43,8 @@ public class TransactionService {
         }
         
         Transaction savedTransaction = transactionRepository.save(transaction);
+        writeCommitTracker.markWritten(WriteCommitTracker.TRANSACTIONS);
+        searchIndexService.transactionsSaved(List.of(savedTransaction));
         log.info("交易记录创建成功: transactionId={}", savedTransaction.getId());
         return savedTransaction;
     }
@@ -42,6 +52,7 @@ public class TransactionService {
     /**
      * 根据ID获取交易记录
      */
+    @Transactional(readOnly = true)
     public Transaction getTransactionById(Integer id) {
         log.debug("查询交易记录: transactionId={}", id);
         return transactionRepository.findById(id)
@@ -54,14 +65,33 @@ public class TransactionService {
     /**
      * 获取所有交易记录
      */
+    @Transactional(readOnly = true)
     public List<Transaction> getAllTransactions() {
         log.debug("查询所有交易记录");
         return transactionRepository.findAll();
     }
     
+    /**
+     * 游标分页查询交易记录
+     * 按 (date, id) 倒序，可按状态、录入用户、交易日期范围过滤
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Transaction> getTransactionPage(String status, Integer userId, LocalDateTime startDate,
+                                                      LocalDateTime endDate, String cursor, Integer size) {
+        log.debug("分页查询交易记录: status={}, userId={}, startDate={}, endDate={}, cursor={}, size={}",
+                status, userId, startDate, endDate, cursor, size);
+        Specification<Transaction> filters = Specification.allOf(
+                KeysetPagination.equal("status", status),
+                KeysetPagination.equal("userID", userId),
+                KeysetPagination.between("date", startDate, endDate));
+        return KeysetPagination.fetch(transactionRepository, filters, "date", cursor, size,
+                Transaction::getDate, Transaction::getId);
+    }
+    
     /**
      * 获取待过账交易
      */
+    @Transactional(readOnly = true)
     public List<Transaction> getPendingTransactions() {
         log.debug("查询待过账交易");
         return transactionRepository.findPendingTransactions();
@@ -70,6 +100,7 @@ public class TransactionService {
     /**
      * 根据用户ID获取交易记录
      */
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByUser(Integer userId) {
         log.debug("根据用户ID查询交易记录: userId={}", userId);
         return transactionRepository.findByUserID(userId);
@@ -82,6 +113,10 @@ public class TransactionService {
     public Transaction updateTransaction(Integer id, Transaction transactionDetails) {
         log.info("更新交易记录: transactionId={}", id);
         Transaction transaction = getTransactionById(id);
+        // 请求带有版本号且与当前版本不一致，说明交易在编辑期间已被他人修改
+        if (transactionDetails.getVersion() != null && !transactionDetails.getVersion().equals(transaction.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Transaction.class, id);
+        }
         if (transactionDetails.getSupplierClient() != null) {
             transaction.setSupplierClient(transactionDetails.getSupplierClient());
         }
@@ -110,18 +145,24 @@ public class TransactionService {
             transaction.setStatus(transactionDetails.getStatus());
         }
         Transaction updatedTransaction = transactionRepository.save(transaction);
+        writeCommitTracker.markWritten(WriteCommitTracker.TRANSACTIONS);
+        searchIndexService.transactionsSaved(List.of(updatedTransaction));
         log.info("交易记录更新成功: transactionId={}", id);
         return updatedTransaction;
     }
     
     /**
      * 删除交易记录
+     * 先删除交易下的分录（已审核的分录冲回科目余额），再删除交易
      */
     @Transactional
     public void deleteTransaction(Integer id) {
         log.info("删除交易记录: transactionId={}", id);
         getTransactionById(id); // 验证存在
+        entryService.deleteEntriesOfTransaction(id);
         transactionRepository.deleteById(id);
+        writeCommitTracker.markWritten(WriteCommitTracker.TRANSACTIONS);
+        searchIndexService.transactionDeleted(id);
         log.info("交易记录删除成功: transactionId={}", id);
     }
 }
@@ -3,13 +3,14 @@ package com.yuanzhi.finledger.service;
 import com.yuanzhi.finledger.dto.AuthResponse;
 import com.yuanzhi.finledger.dto.LoginRequest;
 import com.yuanzhi.finledger.dto.RegisterRequest;
+import com.yuanzhi.finledger.dto.UserView;
 import com.yuanzhi.finledger.entity.User;
 import com.yuanzhi.finledger.exception.BusinessException;
 import com.yuanzhi.finledger.repository.UserRepository;
 import com.yuanzhi.finledger.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,12 +27,13 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final CacheVersionService cacheVersionService;
     
     /**
      * 用户注册
+     * 不在事务中执行，避免排队等待密码哈希时占用数据库连接
      */
-    @Transactional
     public AuthResponse register(RegisterRequest request) {
         log.info("用户注册请求: username={}, role={}", request.getUsername(), request.getRole());
         
@@ -74,7 +76,7 @@ public class UserService {
         
         User user = new User();
         user.setUsername(request.getUsername().trim());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
         user.setEmail(email);
         user.setRole(request.getRole().toUpperCase());
         
@@ -97,10 +99,11 @@ public class UserService {
                     return new BusinessException("用户名或密码错误");
                 });
         
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             log.warn("登录失败: 密码错误 - {}", request.getUsername());
             throw new BusinessException("用户名或密码错误");
         }
+        upgradePasswordIfNeeded(user, request.getPassword());
         
         log.info("用户登录成功: userId={}, username={}", user.getId(), user.getUsername());
         String token = jwtUtil.generateToken(user.getUsername(), user.getRole(), user.getId());
@@ -108,15 +111,31 @@ public class UserService {
     }
     
     /**
-     * 根据ID获取用户
+     * 存储的哈希强度低于当前配置时，用本次登录的明文密码重新哈希
+     * 升级失败不影响登录
+     */
+    private void upgradePasswordIfNeeded(User user, String rawPassword) {
+        if (!passwordHashingService.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordHashingService.encode(rawPassword));
+            userRepository.save(user);
+            cacheVersionService.markChanged(CacheVersionService.USERS, user.getId());
+            log.info("密码哈希已升级: userId={}", user.getId());
+        } catch (RuntimeException e) {
+            log.warn("密码哈希升级失败: userId={}, error={}", user.getId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * 根据ID获取用户（本地缓存，用户信息变更时各节点失效）
+     * 缓存不含密码哈希的不可变视图，不缓存实体本身
      */
-    public User getUserById(Integer id) {
+    @Cacheable(value = CacheVersionService.USERS, key = "#id")
+    public UserView getUserById(Integer id) {
         log.debug("查询用户: userId={}", id);
-        return userRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.warn("用户不存在: userId={}", id);
-                    return new BusinessException("用户不存在");
-                });
+        return UserView.of(findUser(id));
     }
     
     /**
@@ -133,7 +152,7 @@ public class UserService {
     @Transactional
     public User updateUser(Integer id, User userDetails) {
         log.info("更新用户信息: userId={}", id);
-        User user = getUserById(id);
+        User user = findUser(id);
         if (userDetails.getEmail() != null) {
             user.setEmail(userDetails.getEmail());
         }
@@ -141,8 +160,16 @@ public class UserService {
             user.setAvatar(userDetails.getAvatar());
         }
         User updatedUser = userRepository.save(user);
+        cacheVersionService.markChanged(CacheVersionService.USERS, id);
         log.info("用户信息更新成功: userId={}", id);
         return updatedUser;
     }
+    
+    private User findUser(Integer id) {
+        return userRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.warn("用户不存在: userId={}", id);
+                    return new BusinessException("用户不存在");
+                });
+    }
 }
-
@@ -0,0 +1,35 @@
+package com.yuanzhi.finledger.util;
+
+import java.math.BigDecimal;
+
+/**
+ * 科目类别常量
+ */
+public class AccountCategory {
+    public static final String ASSET = "ASSET";          // 资产
+    public static final String LIABILITY = "LIABILITY";  // 负债
+    public static final String EQUITY = "EQUITY";        // 权益
+    public static final String REVENUE = "REVENUE";      // 收入
+    public static final String EXPENSE = "EXPENSE";      // 费用
+    
+    private AccountCategory() {
+        // 工具类，不允许实例化
+    }
+    
+    /**
+     * 是否为借方余额科目（资产、费用）
+     */
+    public static boolean isDebitNormal(String category) {
+        return ASSET.equals(category) || EXPENSE.equals(category);
+    }
+    
+    /**
+     * 按科目余额方向计算余额
+     * 资产、费用类为借方减贷方，其余为贷方减借方
+     */
+    public static BigDecimal balanceOf(String category, BigDecimal debitAmount, BigDecimal creditAmount) {
+        BigDecimal debit = debitAmount != null ? debitAmount : BigDecimal.ZERO;
+        BigDecimal credit = creditAmount != null ? creditAmount : BigDecimal.ZERO;
+        return isDebitNormal(category) ? debit.subtract(credit) : credit.subtract(debit);
+    }
+}
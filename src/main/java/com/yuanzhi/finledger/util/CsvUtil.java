@@ -0,0 +1,104 @@
+package com.yuanzhi.finledger.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV 工具类
+ * 按 RFC 4180 转义和解析字段
+ */
+public class CsvUtil {
+    
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    /**
+     * 电子表格会将以这些字符开头的单元格解析为公式
+     */
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    
+    private CsvUtil() {
+        // 工具类，不允许实例化
+    }
+    
+    /**
+     * 拼接一行 CSV（含行尾换行符）
+     */
+    public static String line(List<?> values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(escape(values.get(i)));
+        }
+        return builder.append("\r\n").toString();
+    }
+    
+    /**
+     * 转义单个字段：包含逗号、引号或换行时用双引号包裹，内部引号加倍；null 输出为空，时间统一为 yyyy-MM-dd HH:mm:ss。
+     * 文本以 = + - @ 或制表符、回车开头时前置单引号，防止在电子表格中作为公式执行；数值、时间原样输出
+     */
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof LocalDateTime time ? DATE_TIME_FORMAT.format(time) : value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+    
+    /**
+     * 从输入流读取一条 CSV 记录，支持引号内的逗号和换行，到达末尾时返回 null
+     */
+    public static List<String> readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            // 引号内的换行属于字段内容，继续读取下一行
+            line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
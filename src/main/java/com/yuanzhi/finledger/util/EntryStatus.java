@@ -0,0 +1,46 @@
+package com.yuanzhi.finledger.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分录状态常量及状态流转规则
+ * DRAFT → SUBMITTED → APPROVED / REJECTED；待审核可退回草稿，已拒绝可修改后重新提交，
+ * 已审核只能被拒绝（冲回科目余额）
+ */
+public class EntryStatus {
+    public static final String DRAFT = "DRAFT";          // 草稿
+    public static final String SUBMITTED = "SUBMITTED";  // 待审核
+    public static final String APPROVED = "APPROVED";    // 已审核
+    public static final String REJECTED = "REJECTED";    // 已拒绝
+    
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            DRAFT, Set.of(SUBMITTED),
+            SUBMITTED, Set.of(DRAFT, APPROVED, REJECTED),
+            APPROVED, Set.of(REJECTED),
+            REJECTED, Set.of(DRAFT, SUBMITTED));
+    
+    private EntryStatus() {
+        // 工具类，不允许实例化
+    }
+    
+    public static boolean isValid(String status) {
+        return TRANSITIONS.containsKey(status);
+    }
+    
+    public static boolean canTransition(String from, String to) {
+        return TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+    
+    /**
+     * 可以流转到目标状态的来源状态（已审核除外，离开已审核需要冲回余额，单独处理）
+     */
+    public static List<String> unapprovedSourcesOf(String to) {
+        return TRANSITIONS.entrySet().stream()
+                .filter(transition -> !APPROVED.equals(transition.getKey()) && transition.getValue().contains(to))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+}
@@ -1,28 +1,85 @@
 package com.yuanzhi.finledger.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret:FinLedgerSecretKeyForJWTTokenGeneration2024}")
-    private String secret;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Long expiration;
     
-    @Value("${jwt.expiration:86400000}") // 24小时
-    private Long expiration;
+    /**
+     * 已验证 token 的 claims 缓存
+     * 以 token 的 SHA-256 摘要为键（不在内存中保留 token 原文），条目在 token 过期时淘汰
+     */
+    private final Cache<String, Claims> verifiedClaims;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    /**
+     * token 验证耗时，cache=hit 为命中缓存，cache=miss 为验证签名（含无效 token）
+     * 同名指标的各标签组合须同为直方图，否则 Prometheus 导出失败
+     */
+    private final Timer cacheHitTimer;
+    private final Timer verifyTimer;
+    
+    public JwtUtil(@Value("${jwt.secret:FinLedgerSecretKeyForJWTTokenGeneration2024}") String secret,
+                   @Value("${jwt.expiration:86400000}") Long expiration, // 24小时
+                   @Value("${jwt.claims-cache.max-size:10000}") long cacheMaxSize,
+                   MeterRegistry meterRegistry) {
+        // 密钥和解析器只构建一次
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.expiration = expiration;
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return remainingNanos(claims);
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return remainingNanos(claims);
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.cacheHitTimer = Timer.builder("finledger.jwt.verify")
+                .description("JWT 验证耗时")
+                .tag("cache", "hit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("finledger.jwt.verify")
+                .description("JWT 验证耗时")
+                .tag("cache", "miss")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
     
     public String generateToken(String username, String role, Integer userId) {
@@ -36,16 +93,42 @@ public class JwtUtil {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
+    /**
+     * 验证签名和有效期并返回 claims，token 无效或已过期时抛出 JwtException
+     * 同一 token 只验证一次签名，之后直接从缓存读取
+     */
     public Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        long start = System.nanoTime();
+        String key = digest(token);
+        Claims claims = verifiedClaims.getIfPresent(key);
+        if (claims != null && !isExpired(claims)) {
+            cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        }
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null) {
+                verifiedClaims.put(key, claims);
+            }
+            return claims;
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * 验证 token，有效时返回 claims，无效或过期时返回 null
+     */
+    public Claims validateAndExtract(String token) {
+        try {
+            return extractClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
     
     public String extractUsername(String token) {
@@ -61,17 +144,28 @@ public class JwtUtil {
     }
     
     public boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
+        return isExpired(extractClaims(token));
     }
     
     public boolean validateToken(String token) {
+        return validateAndExtract(token) != null;
+    }
+    
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
+    }
+    
+    private static long remainingNanos(Claims claims) {
+        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+    }
+    
+    private static String digest(String token) {
         try {
-            extractClaims(token);
-            // 检查 token 是否过期
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
         }
     }
 }
-
@@ -0,0 +1,140 @@
+package com.yuanzhi.finledger.util;
+
+import com.yuanzhi.finledger.dto.CursorPage;
+import com.yuanzhi.finledger.exception.BusinessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标（keyset）分页工具类
+ * 按 (排序字段, id) 倒序翻页，下一页条件为 (排序字段, id) < 上一页最后一行，
+ * 查询始终走排序字段上的索引，耗时与翻页深度无关
+ */
+public class KeysetPagination {
+    
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 200;
+    
+    private static final String SEPARATOR = "|";
+    
+    private KeysetPagination() {
+        // 工具类，不允许实例化
+    }
+    
+    /**
+     * 按 (sortField, id) 查询一页
+     * sortField 为 null 时仅按 id 翻页
+     */
+    public static <T> CursorPage<T> fetch(JpaSpecificationExecutor<T> repository, Specification<T> filters,
+                                          String sortField, String cursor, Integer size,
+                                          Function<T, LocalDateTime> sortValue, Function<T, Integer> idValue) {
+        int limit = normalizeSize(size);
+        Specification<T> spec = filters.and(after(sortField, cursor));
+        Sort sort = sortField != null
+                ? Sort.by(Sort.Order.desc(sortField), Sort.Order.desc("id"))
+                : Sort.by(Sort.Order.desc("id"));
+        // 多取一行用于判断是否还有下一页
+        List<T> rows = repository.findBy(spec, query -> query.sortBy(sort).limit(limit + 1).all());
+        
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = encode(sortField != null ? sortValue.apply(last) : null, idValue.apply(last));
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * 字段等值过滤，值为 null 时不过滤
+     */
+    public static <T> Specification<T> equal(String field, Object value) {
+        if (value == null) {
+            return Specification.unrestricted();
+        }
+        return (root, query, cb) -> cb.equal(root.get(field), value);
+    }
+    
+    /**
+     * 时间范围过滤 [start, end)，任一端为 null 时该端不限
+     */
+    public static <T> Specification<T> between(String field, LocalDateTime start, LocalDateTime end) {
+        Specification<T> spec = Specification.unrestricted();
+        if (start != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.<LocalDateTime>get(field), start));
+        }
+        if (end != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.<LocalDateTime>get(field), end));
+        }
+        return spec;
+    }
+    
+    private static <T> Specification<T> after(String sortField, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Specification.unrestricted();
+        }
+        String[] parts = decode(cursor);
+        Integer lastId = parseId(parts[1]);
+        if (sortField == null) {
+            return (root, query, cb) -> cb.lessThan(root.get("id"), lastId);
+        }
+        LocalDateTime lastValue = parseTime(parts[0]);
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.<LocalDateTime>get(sortField), lastValue),
+                cb.and(cb.equal(root.get(sortField), lastValue), cb.lessThan(root.get("id"), lastId)));
+    }
+    
+    private static int normalizeSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BusinessException("每页条数应在1到" + MAX_SIZE + "之间");
+        }
+        return size;
+    }
+    
+    private static String encode(LocalDateTime sortValue, Integer id) {
+        String raw = (sortValue != null ? sortValue.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                throw new BusinessException("分页游标无效");
+            }
+            return new String[]{raw.substring(0, index), raw.substring(index + 1)};
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+    
+    private static Integer parseId(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+    
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.yuanzhi.finledger.util;
+
+import com.yuanzhi.finledger.entity.Split;
+import com.yuanzhi.finledger.exception.BusinessException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 借贷平衡校验工具类
+ */
+public class LedgerBalance {
+    
+    private LedgerBalance() {
+        // 工具类，不允许实例化
+    }
+    
+    /**
+     * 校验分录拆分的借方总额等于贷方总额，不平衡时抛出业务异常
+     * 调用前需确认拆分及其借贷金额不为空
+     */
+    public static void requireBalanced(List<Split> splits) {
+        BigDecimal totalDebit = splits.stream()
+                .map(Split::getDebitAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        
+        BigDecimal totalCredit = splits.stream()
+                .map(Split::getCreditAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        
+        if (totalDebit.compareTo(totalCredit) != 0) {
+            throw new BusinessException("借贷金额不平衡，借方总额：" + totalDebit + "，贷方总额：" + totalCredit);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.yuanzhi.finledger.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 支付状态常量及状态流转规则
+ * PENDING → APPROVED → PAID，待审批可被拒绝；已拒绝、已支付为终态
+ */
+public class PaymentStatus {
+    public static final String PENDING = "PENDING";    // 待审批
+    public static final String APPROVED = "APPROVED";  // 已审批
+    public static final String REJECTED = "REJECTED";  // 已拒绝
+    public static final String PAID = "PAID";          // 已支付
+    
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            PENDING, Set.of(APPROVED, REJECTED),
+            APPROVED, Set.of(PAID),
+            REJECTED, Set.of(),
+            PAID, Set.of());
+    
+    private PaymentStatus() {
+        // 工具类，不允许实例化
+    }
+    
+    public static boolean canTransition(String from, String to) {
+        return TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+    
+    /**
+     * 可以流转到目标状态的来源状态
+     */
+    public static List<String> sourcesOf(String to) {
+        return TRANSITIONS.entrySet().stream()
+                .filter(transition -> transition.getValue().contains(to))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+}
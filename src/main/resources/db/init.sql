@@ -38,12 +38,17 @@ CREATE TABLE IF NOT EXISTS transactions (
     tax_rate DECIMAL(5,2) DEFAULT NULL COMMENT '税率',
     status VARCHAR(20) DEFAULT 'PENDING' COMMENT '状态：PENDING(待过账), POSTED(已过账), PAID(已支付)',
     user_id INT DEFAULT NULL COMMENT '录入用户ID',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_date (date),
     INDEX idx_status (status),
     INDEX idx_user_id (user_id),
     INDEX idx_supplier_client (supplier_client),
+    -- 账龄分析覆盖索引：按状态、账期范围扫描，无需回表
+    INDEX idx_status_due_date (status, due_date, supplier_client, total_amount, date),
+    -- 搜索索引按更新时间增量同步其他节点的变更
+    INDEX idx_transactions_updated_at (updated_at),
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='交易记录表';
 
@@ -55,10 +60,11 @@ CREATE TABLE IF NOT EXISTS accounts (
     code VARCHAR(20) NOT NULL UNIQUE COMMENT '科目编码',
     name VARCHAR(50) NOT NULL COMMENT '科目名称',
     category VARCHAR(20) NOT NULL COMMENT '科目类别：ASSET(资产), LIABILITY(负债), EQUITY(权益), REVENUE(收入), EXPENSE(费用)',
-    debit_amount DECIMAL(10,2) DEFAULT 0.00 COMMENT '借方金额',
-    credit_amount DECIMAL(10,2) DEFAULT 0.00 COMMENT '贷方金额',
+    debit_amount DECIMAL(15,2) DEFAULT 0.00 COMMENT '累计借方金额',
+    credit_amount DECIMAL(15,2) DEFAULT 0.00 COMMENT '累计贷方金额',
     currency VARCHAR(10) DEFAULT 'CNY' COMMENT '货币类型',
     parent_id INT DEFAULT NULL COMMENT '父科目ID',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_code (code),
@@ -67,6 +73,11 @@ CREATE TABLE IF NOT EXISTS accounts (
     FOREIGN KEY (parent_id) REFERENCES accounts(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='账户科目表';
 
+-- 已有库升级：科目余额为累计发生额，扩大精度避免超出 DECIMAL(10,2) 上限
+ALTER TABLE accounts
+    MODIFY debit_amount DECIMAL(15,2) DEFAULT 0.00 COMMENT '累计借方金额',
+    MODIFY credit_amount DECIMAL(15,2) DEFAULT 0.00 COMMENT '累计贷方金额';
+
 -- ============================================
 -- 4. 分录表 (entries)
 -- ============================================
@@ -78,12 +89,14 @@ CREATE TABLE IF NOT EXISTS entries (
     status VARCHAR(20) DEFAULT 'DRAFT' COMMENT '状态：DRAFT(草稿), SUBMITTED(待审核), APPROVED(已审核), REJECTED(已拒绝)',
     transaction_id INT NOT NULL COMMENT '关联交易ID',
     user_id INT NOT NULL COMMENT '录入用户ID',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_status (status),
     INDEX idx_transaction_id (transaction_id),
     INDEX idx_user_id (user_id),
     INDEX idx_created_date (created_date),
+    INDEX idx_entries_updated_at (updated_at),
     FOREIGN KEY (transaction_id) REFERENCES transactions(id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='分录表';
@@ -118,17 +131,133 @@ CREATE TABLE IF NOT EXISTS payments (
     payment_date DATETIME DEFAULT NULL COMMENT '支付日期',
     status VARCHAR(20) DEFAULT 'PENDING' COMMENT '状态：PENDING(待审批), APPROVED(已审批), REJECTED(已拒绝), PAID(已支付)',
     approved_by INT DEFAULT NULL COMMENT '审批人ID',
+    payment_run_id INT DEFAULT NULL COMMENT '付款批次ID',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_status (status),
     INDEX idx_transaction_id (transaction_id),
     INDEX idx_account_id (account_id),
     INDEX idx_approved_by (approved_by),
+    INDEX idx_payment_run_id (payment_run_id),
     FOREIGN KEY (transaction_id) REFERENCES transactions(id) ON DELETE CASCADE,
     FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE,
     FOREIGN KEY (approved_by) REFERENCES users(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='支付表';
 
+-- ============================================
+-- 7. 号段表 (id_generators)
+-- 交易、分录、拆分主键由号段分配（步长50），以便 Hibernate 对 INSERT 做 JDBC 批处理
+-- ============================================
+CREATE TABLE IF NOT EXISTS id_generators (
+    gen_name VARCHAR(255) NOT NULL PRIMARY KEY COMMENT '号段名称',
+    next_val BIGINT DEFAULT NULL COMMENT '下一个号段值'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='号段表';
+
+-- ============================================
+-- 8. 科目期末余额快照表 (account_period_balances)
+-- 按自然月结账写入，时点余额 = 最近快照 + 快照之后的发生额
+-- ============================================
+CREATE TABLE IF NOT EXISTS account_period_balances (
+    id INT AUTO_INCREMENT PRIMARY KEY COMMENT '快照ID',
+    account_id INT NOT NULL COMMENT '关联科目ID',
+    period VARCHAR(7) NOT NULL COMMENT '会计期间（yyyy-MM）',
+    period_start DATETIME NOT NULL COMMENT '期间开始时间（含）',
+    period_end DATETIME NOT NULL COMMENT '期间结束时间（不含）',
+    opening_debit DECIMAL(15,2) DEFAULT 0.00 COMMENT '期初累计借方',
+    opening_credit DECIMAL(15,2) DEFAULT 0.00 COMMENT '期初累计贷方',
+    period_debit DECIMAL(15,2) DEFAULT 0.00 COMMENT '本期借方发生额',
+    period_credit DECIMAL(15,2) DEFAULT 0.00 COMMENT '本期贷方发生额',
+    closing_debit DECIMAL(15,2) DEFAULT 0.00 COMMENT '期末累计借方',
+    closing_credit DECIMAL(15,2) DEFAULT 0.00 COMMENT '期末累计贷方',
+    closed_at DATETIME DEFAULT NULL COMMENT '结账时间',
+    UNIQUE KEY uk_account_period (account_id, period),
+    INDEX idx_period_end (period_end),
+    FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='科目期末余额快照表';
+
+-- ============================================
+-- 9. 缓存版本表 (cache_versions)
+-- 用户、科目变更时递增版本号，各节点定时轮询以失效本地缓存
+-- ============================================
+CREATE TABLE IF NOT EXISTS cache_versions (
+    cache_name VARCHAR(50) NOT NULL PRIMARY KEY COMMENT '缓存名称',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '版本号'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='缓存版本表';
+
+INSERT IGNORE INTO cache_versions (cache_name, version) VALUES ('users', 0), ('accounts', 0);
+
+-- ============================================
+-- 10. 付款批次表 (payment_runs)
+-- 已审批支付分批标记为已支付，last_payment_id 为检查点，中断后从检查点继续
+-- ============================================
+CREATE TABLE IF NOT EXISTS payment_runs (
+    id INT AUTO_INCREMENT PRIMARY KEY COMMENT '付款批次ID',
+    cutoff_date DATE NOT NULL COMMENT '截止日期（含）',
+    status VARCHAR(20) DEFAULT NULL COMMENT '状态：RUNNING(执行中), COMPLETED(已完成), FAILED(失败)',
+    last_payment_id INT NOT NULL DEFAULT 0 COMMENT '检查点：已处理的最大支付ID',
+    payment_count INT NOT NULL DEFAULT 0 COMMENT '已支付笔数',
+    transfer_count INT NOT NULL DEFAULT 0 COMMENT '付款文件转账笔数（按科目、收款方合并）',
+    total_amount DECIMAL(15,2) DEFAULT 0.00 COMMENT '付款总额',
+    created_by INT DEFAULT NULL COMMENT '发起人ID',
+    created_date DATETIME DEFAULT NULL COMMENT '发起时间',
+    finished_date DATETIME DEFAULT NULL COMMENT '完成时间',
+    message VARCHAR(255) DEFAULT NULL COMMENT '失败原因',
+    owner VARCHAR(64) DEFAULT NULL COMMENT '执行节点标识',
+    heartbeat DATETIME DEFAULT NULL COMMENT '执行节点最近一次推进进度的时间',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
+    INDEX idx_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='付款批次表';
+
+-- ============================================
+-- 11. 任务锁表 (job_locks)
+-- 需要在多个节点间串行执行的操作先锁定对应记录（SELECT ... FOR UPDATE），锁随事务结束释放
+-- ============================================
+CREATE TABLE IF NOT EXISTS job_locks (
+    lock_name VARCHAR(50) NOT NULL PRIMARY KEY COMMENT '锁名称'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='任务锁表';
+
+INSERT IGNORE INTO job_locks (lock_name) VALUES ('payment-run'), ('period-close');
+
+-- ============================================
+-- 12. 交易导入任务表 (import_jobs)
+-- 导入进度保存在数据库中，任一节点都可以查询；已结束超过1小时的任务在提交新任务时清理
+-- ============================================
+CREATE TABLE IF NOT EXISTS import_jobs (
+    job_id VARCHAR(36) NOT NULL PRIMARY KEY COMMENT '任务ID',
+    file_name VARCHAR(255) DEFAULT NULL COMMENT '导入文件名',
+    status VARCHAR(20) DEFAULT NULL COMMENT '状态：RUNNING(执行中), COMPLETED(已完成), FAILED(失败)',
+    processed_rows BIGINT NOT NULL DEFAULT 0 COMMENT '已处理行数',
+    imported_rows BIGINT NOT NULL DEFAULT 0 COMMENT '成功导入行数',
+    failed_rows BIGINT NOT NULL DEFAULT 0 COMMENT '失败行数',
+    message VARCHAR(255) DEFAULT NULL COMMENT '失败原因',
+    started_at DATETIME DEFAULT NULL COMMENT '提交时间',
+    updated_at DATETIME DEFAULT NULL COMMENT '最近一次写入进度的时间',
+    finished_at DATETIME DEFAULT NULL COMMENT '结束时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='交易导入任务表';
+
+-- ============================================
+-- 13. 交易导入行错误表 (import_job_errors)
+-- 每个任务最多保留前1000条行错误
+-- ============================================
+CREATE TABLE IF NOT EXISTS import_job_errors (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '错误ID',
+    job_id VARCHAR(36) NOT NULL COMMENT '导入任务ID',
+    row_no BIGINT NOT NULL COMMENT '文件中的数据行号（从1开始，不含表头）',
+    message VARCHAR(255) DEFAULT NULL COMMENT '错误原因',
+    INDEX idx_import_job_errors_job_id (job_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='交易导入行错误表';
+
+-- ============================================
+-- 14. 待重新结账请求表 (period_close_requests)
+-- 已结账期间内的分录变动随业务事务写入请求，提交后由后台任务在结账任务锁下重算快照并删除请求
+-- ============================================
+CREATE TABLE IF NOT EXISTS period_close_requests (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '请求ID',
+    period VARCHAR(7) NOT NULL COMMENT '发生变动的最早会计期间（yyyy-MM）',
+    created_at DATETIME NOT NULL COMMENT '请求时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='待重新结账请求表';
+
 -- ============================================
 -- 初始化数据
 -- ============================================
@@ -0,0 +1,296 @@
+package com.yuanzhi.finledger;
+
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.entity.User;
+import com.yuanzhi.finledger.repository.AccountRepository;
+import com.yuanzhi.finledger.repository.UserRepository;
+import com.yuanzhi.finledger.util.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 端到端记账吞吐压测
+ * 在嵌入式数据库上启动完整应用，按 db/init.sql 的科目表生成带明细科目的科目树，
+ * 多线程经 HTTP 并发执行 创建交易 → 创建分录 → 审核分录 → 创建支付 → 审批支付，
+ * 输出每个步骤的 ops/s 与 p50/p99 延迟，并写入 target/ledger-throughput.json 便于对比。
+ * 步骤的 ops/s 按该步骤自身的耗时计算（并发线程数 / 平均延迟），即各线程只执行该步骤时的吞吐
+ * 运行：mvn -Pperf test
+ */
+@Tag("perf")
+@ActiveProfiles("perf")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LedgerThroughputTest {
+    
+    private static final Pattern ACCOUNT_ROW = Pattern.compile("\\('(\\d+)', '([^']+)', '([A-Z]+)', 'CNY'\\)");
+    private static final String[] STEPS = {"createTransaction", "createEntry", "approveEntry", "createPayment", "approvePayment"};
+    
+    @LocalServerPort
+    private int port;
+    
+    @Value("${perf.threads:8}")
+    private int threads;
+    
+    @Value("${perf.flows:100}")
+    private int flowsPerThread;
+    
+    @Value("${perf.warmup-flows:20}")
+    private int warmupFlows;
+    
+    @Value("${perf.sub-accounts:5}")
+    private int subAccountsPerAccount;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    
+    private List<Integer> postingAccountIds;
+    private User accountant;
+    private User manager;
+    private String accountantToken;
+    private String managerToken;
+    
+    @Test
+    void ledgerFlowThroughput() throws Exception {
+        seed();
+        
+        // 预热：让 JIT、连接池和号段分配进入稳定状态
+        for (int i = 0; i < warmupFlows; i++) {
+            runFlow(new long[STEPS.length][1], 0);
+        }
+        
+        long[][][] latencies = new long[threads][STEPS.length][flowsPerThread];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long[][] threadLatencies = latencies[t];
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < flowsPerThread; i++) {
+                    runFlow(threadLatencies, i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        
+        report(latencies, elapsedSeconds);
+    }
+    
+    /**
+     * 生成科目表和用户：科目取自 db/init.sql，每个科目下再生成若干明细科目供记账使用
+     */
+    private void seed() throws Exception {
+        String script = new ClassPathResource("db/init.sql").getContentAsString(StandardCharsets.UTF_8);
+        Matcher matcher = ACCOUNT_ROW.matcher(script);
+        List<Account> parents = new ArrayList<>();
+        while (matcher.find()) {
+            parents.add(account(matcher.group(1), matcher.group(2), matcher.group(3), null));
+        }
+        parents = accountRepository.saveAll(parents);
+        
+        List<Account> children = new ArrayList<>();
+        for (Account parent : parents) {
+            for (int i = 1; i <= subAccountsPerAccount; i++) {
+                children.add(account(parent.getCode() + String.format("%02d", i),
+                        parent.getName() + "-明细" + i, parent.getCategory(), parent.getId()));
+            }
+        }
+        postingAccountIds = accountRepository.saveAll(children).stream().map(Account::getId).toList();
+        
+        accountant = userRepository.save(user("perf-accountant", "ACCOUNTANT"));
+        manager = userRepository.save(user("perf-manager", "MANAGER"));
+        accountantToken = jwtUtil.generateToken(accountant.getUsername(), accountant.getRole(), accountant.getId());
+        managerToken = jwtUtil.generateToken(manager.getUsername(), manager.getRole(), manager.getId());
+    }
+    
+    /**
+     * 执行一次完整的记账流程，按步骤记录耗时（纳秒）
+     */
+    private void runFlow(long[][] latencies, int index) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BigDecimal amount = BigDecimal.valueOf(random.nextLong(100, 10_000_000), 2);
+        
+        long start = System.nanoTime();
+        Map<String, Object> transaction = new LinkedHashMap<>();
+        transaction.put("supplierClient", "压测客户" + random.nextInt(1000));
+        transaction.put("project", "PERF");
+        transaction.put("totalAmount", amount);
+        transaction.put("userID", accountant.getId());
+        int transactionId = send("POST", "/api/transactions", accountantToken, transaction).get("id").asInt();
+        latencies[0][index] = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("summary", "压测分录");
+        entry.put("totalAmount", amount);
+        entry.put("status", "SUBMITTED");
+        entry.put("transactionID", transactionId);
+        entry.put("userID", accountant.getId());
+        int entryId = send("POST", "/api/entries", accountantToken,
+                Map.of("entry", entry, "splits", splits(amount, random))).get("id").asInt();
+        latencies[1][index] = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        send("PUT", "/api/entries/" + entryId + "/status?status=APPROVED", managerToken, null);
+        latencies[2][index] = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        Map<String, Object> payment = new LinkedHashMap<>();
+        payment.put("transactionID", transactionId);
+        payment.put("accountID", postingAccountIds.get(random.nextInt(postingAccountIds.size())));
+        payment.put("amount", amount);
+        int paymentId = send("POST", "/api/payments", accountantToken, payment).get("id").asInt();
+        latencies[3][index] = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        send("PUT", "/api/payments/" + paymentId + "/approve?approverId=" + manager.getId(), managerToken, null);
+        latencies[4][index] = System.nanoTime() - start;
+    }
+    
+    /**
+     * 生成 2~6 行拆分：若干借方行，最后一行贷方轧平
+     */
+    private List<Map<String, Object>> splits(BigDecimal amount, ThreadLocalRandom random) {
+        int debitLines = random.nextInt(1, 6);
+        List<Map<String, Object>> splits = new ArrayList<>();
+        BigDecimal remaining = amount;
+        for (int i = 0; i < debitLines; i++) {
+            BigDecimal debit = i == debitLines - 1
+                    ? remaining
+                    : remaining.divide(BigDecimal.valueOf(debitLines - i), 2, RoundingMode.DOWN);
+            remaining = remaining.subtract(debit);
+            splits.add(Map.of("accountID", randomAccount(random), "debitAmount", debit, "creditAmount", BigDecimal.ZERO));
+        }
+        splits.add(Map.of("accountID", randomAccount(random), "debitAmount", BigDecimal.ZERO, "creditAmount", amount));
+        return splits;
+    }
+    
+    private Integer randomAccount(ThreadLocalRandom random) {
+        return postingAccountIds.get(random.nextInt(postingAccountIds.size()));
+    }
+    
+    private JsonNode send(String method, String path, String token, Object body) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json");
+        builder.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        HttpResponse<byte[]> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode(),
+                () -> method + " " + path + " 失败: " + new String(response.body(), StandardCharsets.UTF_8));
+        return objectMapper.readTree(response.body());
+    }
+    
+    private void report(long[][][] latencies, double elapsedSeconds) throws Exception {
+        int flows = threads * flowsPerThread;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", threads);
+        result.put("flows", flows);
+        result.put("elapsedSeconds", elapsedSeconds);
+        result.put("flowsPerSecond", flows / elapsedSeconds);
+        
+        StringBuilder table = new StringBuilder(String.format("%n%-18s %10s %10s %10s %10s%n",
+                "step", "ops/s", "p50(ms)", "p99(ms)", "max(ms)"));
+        Map<String, Object> steps = new LinkedHashMap<>();
+        for (int s = 0; s < STEPS.length; s++) {
+            long[] all = new long[flows];
+            for (int t = 0; t < threads; t++) {
+                System.arraycopy(latencies[t][s], 0, all, t * flowsPerThread, flowsPerThread);
+            }
+            Arrays.sort(all);
+            // 各线程在该步骤上的累计耗时之和除以线程数，为该步骤占用的墙钟时间
+            double stepSeconds = Arrays.stream(all).sum() / 1e9 / threads;
+            double opsPerSecond = flows / stepSeconds;
+            double p50 = percentile(all, 0.50);
+            double p99 = percentile(all, 0.99);
+            double max = all[all.length - 1] / 1e6;
+            table.append(String.format("%-18s %10.1f %10.2f %10.2f %10.2f%n", STEPS[s], opsPerSecond, p50, p99, max));
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("opsPerSecond", opsPerSecond);
+            step.put("seconds", stepSeconds);
+            step.put("p50Millis", p50);
+            step.put("p99Millis", p99);
+            step.put("maxMillis", max);
+            steps.put(STEPS[s], step);
+        }
+        table.append(String.format("%d 线程共 %d 个流程，耗时 %.1f s，%.1f 流程/s%n",
+                threads, flows, elapsedSeconds, flows / elapsedSeconds));
+        result.put("steps", steps);
+        
+        System.out.println(table);
+        Path output = Path.of("target", "ledger-throughput.json");
+        Files.createDirectories(output.getParent());
+        Files.write(output, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(result));
+    }
+    
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+    
+    private static Account account(String code, String name, String category, Integer parentId) {
+        Account account = new Account();
+        account.setCode(code);
+        account.setName(name);
+        account.setCategory(category);
+        account.setParentID(parentId);
+        return account;
+    }
+    
+    private static User user(String username, String role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}perf");
+        user.setRole(role);
+        user.setEmail(username + "@finledger.test");
+        return user;
+    }
+}
@@ -0,0 +1,111 @@
+package com.yuanzhi.finledger.config;
+
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.service.AccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 读写分离路由测试
+ * 主库、从库为两个独立的 H2 数据库，复制由 replicate() 以快照方式模拟，
+ * 因此未复制前只读查询看不到主库的新数据，借此判断查询落在哪个库
+ */
+@ActiveProfiles("replica")
+@SpringBootTest
+class ReadReplicaRoutingTest {
+    
+    @Autowired
+    private AccountService accountService;
+    
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+    
+    private static int codeSequence = 9000;
+    
+    @BeforeEach
+    void replicate() {
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        for (String statement : script) {
+            if (!statement.startsWith("CREATE USER")) {
+                replica.execute(statement);
+            }
+        }
+    }
+    
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void readOnlyQueriesGoToReplica() {
+        Account account = accountService.createAccount(account());
+        
+        assertFalse(containsCode(accountService.getAllAccounts(), account.getCode()), "未复制前从库不应有新科目");
+        replicate();
+        assertTrue(containsCode(accountService.getAllAccounts(), account.getCode()), "复制后从库应可读到新科目");
+    }
+    
+    @Test
+    void writerReadsOwnWritesFromPrimary() {
+        login("alice");
+        Account account = accountService.createAccount(account());
+        assertTrue(containsCode(accountService.getAllAccounts(), account.getCode()), "写入用户在粘滞窗口内应读主库");
+        assertEquals(account.getName(), accountService.getAccountById(account.getId()).getName());
+        
+        login("bob");
+        assertFalse(containsCode(accountService.getAllAccounts(), account.getCode()), "其他用户仍读从库");
+    }
+    
+    @Test
+    void readOnlyCallsInsideWriteTransactionStayOnPrimary() {
+        Account account = accountService.createAccount(account());
+        Account details = new Account();
+        details.setName("已改名");
+        details.setCategory(account.getCategory());
+        
+        // updateAccount 内部调用只读的 getAccountById，加入当前写事务，应读到尚未复制的科目
+        assertEquals("已改名", accountService.updateAccount(account.getId(), details).getName());
+    }
+    
+    private static Account account() {
+        Account account = new Account();
+        account.setCode(String.valueOf(codeSequence++));
+        account.setName("路由测试科目" + codeSequence);
+        account.setCategory("ASSET");
+        return account;
+    }
+    
+    private static boolean containsCode(List<Account> accounts, String code) {
+        return accounts.stream().anyMatch(account -> code.equals(account.getCode()));
+    }
+    
+    private static void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_ACCOUNTANT"))));
+    }
+}
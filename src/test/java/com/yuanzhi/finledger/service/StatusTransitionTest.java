@@ -0,0 +1,218 @@
+package com.yuanzhi.finledger.service;
+
+import com.yuanzhi.finledger.entity.Account;
+import com.yuanzhi.finledger.entity.Entry;
+import com.yuanzhi.finledger.entity.Payment;
+import com.yuanzhi.finledger.entity.Split;
+import com.yuanzhi.finledger.entity.Transaction;
+import com.yuanzhi.finledger.entity.User;
+import com.yuanzhi.finledger.exception.BusinessException;
+import com.yuanzhi.finledger.repository.AccountRepository;
+import com.yuanzhi.finledger.repository.UserRepository;
+import com.yuanzhi.finledger.util.EntryStatus;
+import com.yuanzhi.finledger.util.PaymentStatus;
+import com.yuanzhi.finledger.util.RoleConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 分录、支付状态流转测试
+ * 校验状态机的流转表，并在嵌入式数据库上经服务层验证非法流转被拒绝、
+ * 同一笔支付同时审批和拒绝时条件 UPDATE 只让一方生效
+ */
+@ActiveProfiles("embedded")
+@SpringBootTest
+class StatusTransitionTest {
+    
+    private static final List<String> ENTRY_STATUSES =
+            List.of(EntryStatus.DRAFT, EntryStatus.SUBMITTED, EntryStatus.APPROVED, EntryStatus.REJECTED);
+    private static final List<String> PAYMENT_STATUSES =
+            List.of(PaymentStatus.PENDING, PaymentStatus.APPROVED, PaymentStatus.REJECTED, PaymentStatus.PAID);
+    
+    @Autowired
+    private EntryService entryService;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Autowired
+    private AccountService accountService;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private static int sequence = 8000;
+    
+    private Integer userId;
+    private Account cash;
+    private Account revenue;
+    private Transaction transaction;
+    
+    @BeforeEach
+    void setUp() {
+        int id = sequence++;
+        userId = userRepository.save(new User(null, "status" + id, "x", RoleConstants.BOSS,
+                "status" + id + "@finledger.com", null, null)).getId();
+        cash = accountService.createAccount(account(String.valueOf(sequence++), "ASSET"));
+        revenue = accountService.createAccount(account(String.valueOf(sequence++), "REVENUE"));
+        Transaction details = new Transaction();
+        details.setSupplierClient("状态测试客户");
+        details.setTotalAmount(new BigDecimal("10.00"));
+        details.setUserID(userId);
+        transaction = transactionService.createTransaction(details);
+    }
+    
+    @Test
+    void entryTransitionTable() {
+        Map<String, Set<String>> expected = Map.of(
+                EntryStatus.DRAFT, Set.of(EntryStatus.SUBMITTED),
+                EntryStatus.SUBMITTED, Set.of(EntryStatus.DRAFT, EntryStatus.APPROVED, EntryStatus.REJECTED),
+                EntryStatus.APPROVED, Set.of(EntryStatus.REJECTED),
+                EntryStatus.REJECTED, Set.of(EntryStatus.DRAFT, EntryStatus.SUBMITTED));
+        for (String from : ENTRY_STATUSES) {
+            for (String to : ENTRY_STATUSES) {
+                assertEquals(expected.get(from).contains(to), EntryStatus.canTransition(from, to), from + " → " + to);
+            }
+        }
+        assertEquals(List.of(EntryStatus.SUBMITTED), EntryStatus.unapprovedSourcesOf(EntryStatus.APPROVED));
+        assertEquals(List.of(EntryStatus.SUBMITTED), EntryStatus.unapprovedSourcesOf(EntryStatus.REJECTED));
+    }
+    
+    @Test
+    void paymentTransitionTable() {
+        Map<String, Set<String>> expected = Map.of(
+                PaymentStatus.PENDING, Set.of(PaymentStatus.APPROVED, PaymentStatus.REJECTED),
+                PaymentStatus.APPROVED, Set.of(PaymentStatus.PAID),
+                PaymentStatus.REJECTED, Set.of(),
+                PaymentStatus.PAID, Set.of());
+        for (String from : PAYMENT_STATUSES) {
+            for (String to : PAYMENT_STATUSES) {
+                assertEquals(expected.get(from).contains(to), PaymentStatus.canTransition(from, to), from + " → " + to);
+            }
+        }
+        assertEquals(List.of(PaymentStatus.APPROVED), PaymentStatus.sourcesOf(PaymentStatus.PAID));
+        assertEquals(List.of(PaymentStatus.PENDING), PaymentStatus.sourcesOf(PaymentStatus.REJECTED));
+    }
+    
+    @Test
+    void draftEntryCannotBeApproved() {
+        Entry entry = createEntry(EntryStatus.DRAFT);
+        
+        assertThrows(BusinessException.class,
+                () -> entryService.updateEntryStatus(entry.getId(), EntryStatus.APPROVED));
+        assertEquals(EntryStatus.DRAFT, entryService.getEntryById(entry.getId()).getStatus());
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findById(cash.getId()).orElseThrow().getDebitAmount()),
+                "未审核的分录不应记入科目余额");
+    }
+    
+    @Test
+    void rejectedPaymentCannotBePaid() {
+        Payment payment = createPayment();
+        paymentService.rejectPayment(payment.getId(), userId);
+        
+        assertThrows(BusinessException.class, () -> paymentService.completePayment(payment.getId()));
+        assertEquals(PaymentStatus.REJECTED, paymentService.getPaymentById(payment.getId()).getStatus());
+    }
+    
+    @Test
+    void concurrentApproveAndRejectOnlyOneWins() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Integer id = createPayment().getId();
+                CountDownLatch start = new CountDownLatch(1);
+                Future<String> approve = executor.submit(
+                        race(start, () -> paymentService.approvePayment(id, userId).getStatus()));
+                Future<String> reject = executor.submit(
+                        race(start, () -> paymentService.rejectPayment(id, userId).getStatus()));
+                start.countDown();
+                
+                List<String> winners = new ArrayList<>();
+                for (Future<String> result : List.of(approve, reject)) {
+                    String status = result.get();
+                    if (status != null) {
+                        winners.add(status);
+                    }
+                }
+                assertEquals(1, winners.size(), "同时审批和拒绝时应只有一方生效: " + winners);
+                assertEquals(winners.get(0), paymentService.getPaymentById(id).getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 等待同时开始后执行，被拒绝的一方返回 null
+     */
+    private static Callable<String> race(CountDownLatch start, Callable<String> transition) {
+        return () -> {
+            start.await();
+            try {
+                return transition.call();
+            } catch (BusinessException e) {
+                return null;
+            }
+        };
+    }
+    
+    private Entry createEntry(String status) {
+        Entry entry = new Entry();
+        entry.setSummary("状态测试分录");
+        entry.setTotalAmount(new BigDecimal("10.00"));
+        entry.setTransactionID(transaction.getId());
+        entry.setUserID(userId);
+        entry.setStatus(status);
+        List<Split> splits = new ArrayList<>(List.of(
+                split(cash, new BigDecimal("10.00"), BigDecimal.ZERO),
+                split(revenue, BigDecimal.ZERO, new BigDecimal("10.00"))));
+        return entryService.createEntry(entry, splits);
+    }
+    
+    private Payment createPayment() {
+        Payment payment = new Payment();
+        payment.setTransactionID(transaction.getId());
+        payment.setAccountID(cash.getId());
+        payment.setAmount(new BigDecimal("1.00"));
+        return paymentService.createPayment(payment);
+    }
+    
+    private static Split split(Account account, BigDecimal debit, BigDecimal credit) {
+        Split split = new Split();
+        split.setAccountID(account.getId());
+        split.setDebitAmount(debit);
+        split.setCreditAmount(credit);
+        return split;
+    }
+    
+    private static Account account(String code, String category) {
+        Account account = new Account();
+        account.setCode(code);
+        account.setName("状态测试科目" + code);
+        account.setCategory(category);
+        return account;
+    }
+}